@@ -0,0 +1,91 @@
+package LowLevelDesign.DesignBookMyShow;
+
+import LowLevelDesign.DesignBookMyShow.Enums.SeatCategory;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//finds the best N side by side free seats of a category, nearest to the centre of the category's rows
+//free seats of a row are read straight from the show's booked seat bitmap, and the runs of N free seats
+//are found with N-1 shift-and-AND steps on that one long, so a 1000 seat screen is checked in a few microseconds
+public class BestSeatFinder {
+
+    //one row away from the centre costs as much as this many seats away from the middle of the row
+    private static final int ROW_WEIGHT = 2;
+
+    //returns the seat ids, or null if no row has N free seats together
+    //the result is only a snapshot, the seats still have to be claimed with Show.bookSeats
+    static int[] findBestSeats(Show show, SeatCategory seatCategory, int noOfSeats) {
+
+        if (noOfSeats <= 0 || noOfSeats > SeatRow.MAX_SEATS) {
+            throw new IllegalArgumentException("Invalid no of seats: " + noOfSeats);
+        }
+
+        List<SeatRow> seatRows = show.getScreen().getSeatRows();
+
+        //centre row of the category, twice the value to keep it an int
+        int minRow = Integer.MAX_VALUE;
+        int maxRow = Integer.MIN_VALUE;
+        for (SeatRow seatRow : seatRows) {
+            if (seatRow.seatCategory == seatCategory) {
+                minRow = Math.min(minRow, seatRow.row);
+                maxRow = Math.max(maxRow, seatRow.row);
+            }
+        }
+        if (minRow == Integer.MAX_VALUE) {
+            return null;
+        }
+        int centreRowTwice = minRow + maxRow;
+
+        long bestScore = Long.MAX_VALUE;
+        int bestFirstSeatId = -1;
+        for (SeatRow seatRow : seatRows) {
+            if (seatRow.seatCategory != seatCategory || seatRow.noOfSeats < noOfSeats) {
+                continue;
+            }
+
+            long free = ~bitsOf(show.bookedSeats, seatRow.firstSeatId, seatRow.noOfSeats) & maskOf(seatRow.noOfSeats);
+
+            //bit i of starts is set when seats i .. i+N-1 of the row are all free
+            long starts = free;
+            for (int k = 1; k < noOfSeats && starts != 0; k++) {
+                starts &= free >>> k;
+            }
+
+            long rowScore = (long) Math.abs(2 * seatRow.row - centreRowTwice) * ROW_WEIGHT;
+            while (starts != 0) {
+                int start = Long.numberOfTrailingZeros(starts);
+                starts &= starts - 1;
+                long score = rowScore + Math.abs(2 * start + noOfSeats - seatRow.noOfSeats);
+                if (score < bestScore) {
+                    bestScore = score;
+                    bestFirstSeatId = seatRow.firstSeatId + start;
+                }
+            }
+        }
+
+        if (bestFirstSeatId < 0) {
+            return null;
+        }
+        int[] seatIds = new int[noOfSeats];
+        for (int i = 0; i < noOfSeats; i++) {
+            seatIds[i] = bestFirstSeatId + i;
+        }
+        return seatIds;
+    }
+
+    //length bits of the bitmap starting at bit from, length is at most 64
+    private static long bitsOf(AtomicLongArray bitmap, int from, int length) {
+        int word = from >>> 6;
+        int offset = from & 63;
+        long bits = bitmap.get(word) >>> offset;
+        if (offset + length > 64) {
+            bits |= bitmap.get(word + 1) << (64 - offset);
+        }
+        return bits & maskOf(length);
+    }
+
+    private static long maskOf(int length) {
+        return length == 64 ? -1L : (1L << length) - 1;
+    }
+}
@@ -4,17 +4,26 @@ import LowLevelDesign.DesignBookMyShow.Enums.City;
 import LowLevelDesign.DesignBookMyShow.Enums.SeatCategory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class BookMyShow {
 
+    //seats are held for this long while the user pays
+    private static final long SEAT_HOLD_MINUTES = 10;
+    private static final int SEATS_PER_ROW = 10;
+
     MovieController movieController;
     TheatreController theatreController;
+    SeatHoldController seatHoldController;
+    SeatLayout standardSeatLayout;
 
     BookMyShow() {
         movieController = new MovieController();
         theatreController = new TheatreController();
+        seatHoldController = new SeatHoldController(SEAT_HOLD_MINUTES, TimeUnit.MINUTES);
     }
 
 
@@ -29,6 +38,45 @@ public class BookMyShow {
         //user2
         bookMyShow.createBooking(City.Bangalore, "BAAHUBALI");
 
+        //user3 and user4, 3 seats together in GOLD
+        bookMyShow.createBestSeatsBooking(City.Bangalore, "BAAHUBALI", SeatCategory.GOLD, 3);
+        bookMyShow.createBestSeatsBooking(City.Bangalore, "BAAHUBALI", SeatCategory.GOLD, 3);
+
+        //theatre adds a late night show, screen must be free for the whole movie
+        bookMyShow.scheduleShow(City.Bangalore, "AVENGERS", 17 * 60);
+        bookMyShow.scheduleShow(City.Bangalore, "AVENGERS", 19 * 60 + 30);
+
+        //user5, evening shows of AVENGERS between 6 PM and 10 PM
+        List<Show> eveningShows = bookMyShow.theatreController.getShows(
+                bookMyShow.movieController.getMovieByName("AVENGERS"), City.Bangalore, 18 * 60, 22 * 60);
+        System.out.println(eveningShows.size() + " AVENGERS show between 6 PM and 10 PM");
+
+        //listing page of BAAHUBALI, seats left per category come from the counters of the show
+        for (Show show : bookMyShow.theatreController.getShows(bookMyShow.movieController.getMovieByName("BAAHUBALI"), City.Bangalore)) {
+            StringBuilder seatsLeft = new StringBuilder();
+            for (SeatCategory seatCategory : SeatCategory.values()) {
+                seatsLeft.append(" ").append(seatCategory).append(" : ").append(show.getFreeSeats(seatCategory));
+            }
+            System.out.println("show " + show.getShowId() + " seats left" + seatsLeft);
+        }
+
+        bookMyShow.seatHoldController.shutdown();
+    }
+
+    private void scheduleShow(City city, String movieName, int startMinute) {
+
+        Theatre theatre = theatreController.cityVsTheatre.get(city).get(0);
+        Show show = new Show();
+        show.setShowId(theatre.getShows().size() + 100);
+        show.setScreen(theatre.getScreen().get(0));
+        show.setMovie(movieController.getMovieByName(movieName));
+        show.setShowStartMinute(startMinute);
+
+        if (theatreController.addShow(theatre, show)) {
+            System.out.printf("%s scheduled at %02d:%02d%n", movieName, startMinute / 60, startMinute % 60);
+        } else {
+            System.out.printf("screen is busy at %02d:%02d, %s not scheduled%n", startMinute / 60, startMinute % 60, movieName);
+        }
     }
 
     private void createBooking(City userCity, String movieName) {
@@ -54,21 +102,24 @@ public class BookMyShow {
         List<Show> runningShows = entry.getValue();
         Show interestedShow = runningShows.get(0);
 
-        //5. select the seat
+        //5. select the seat and hold it till the payment is done
         int seatNumber = 30;
-        List<Integer> bookedSeats = interestedShow.getBookedSeatIds();
-        if(!bookedSeats.contains(seatNumber)){
-            bookedSeats.add(seatNumber);
+        SeatHold seatHold = seatHoldController.holdSeats(interestedShow, seatNumber);
+        if(seatHold != null){
             //startPayment
+            Payment payment = new Payment();
+
+            //6. payment done, book the held seat. hold may have expired if the payment took too long
+            if (!seatHoldController.confirm(seatHold)) {
+                System.out.println("seat hold expired, try again");
+                return;
+            }
             Booking booking = new Booking();
             List<Seat> myBookedSeats = new ArrayList<>();
-            for(Seat screenSeat : interestedShow.getScreen().getSeats()) {
-                if(screenSeat.getSeatId() == seatNumber) {
-                    myBookedSeats.add(screenSeat);
-                }
-            }
+            myBookedSeats.add(interestedShow.getScreen().getSeat(seatNumber));
             booking.setBookedSeats(myBookedSeats);
             booking.setShow(interestedShow);
+            booking.setPayment(payment);
         } else {
             //throw exception
             System.out.println("seat already booked, try again");
@@ -78,6 +129,34 @@ public class BookMyShow {
         System.out.println("BOOKING SUCCESSFUL");
     }
 
+    private void createBestSeatsBooking(City userCity, String movieName, SeatCategory seatCategory, int noOfSeats) {
+
+        Movie interestedMovie = movieController.getMovieByName(movieName);
+        Show interestedShow = theatreController.getShows(interestedMovie, userCity).get(0);
+
+        SeatHold seatHold = seatHoldController.holdBestSeats(interestedShow, seatCategory, noOfSeats);
+        if (seatHold == null) {
+            System.out.println(noOfSeats + " seats together not available in " + seatCategory);
+            return;
+        }
+
+        Payment payment = new Payment();
+        if (!seatHoldController.confirm(seatHold)) {
+            System.out.println("seat hold expired, try again");
+            return;
+        }
+        Booking booking = new Booking();
+        List<Seat> myBookedSeats = new ArrayList<>();
+        for (int seatId : seatHold.getSeatIds()) {
+            myBookedSeats.add(interestedShow.getScreen().getSeat(seatId));
+        }
+        booking.setBookedSeats(myBookedSeats);
+        booking.setShow(interestedShow);
+        booking.setPayment(payment);
+
+        System.out.println("BOOKING SUCCESSFUL, seats " + Arrays.toString(seatHold.getSeatIds()));
+    }
+
     private void initialize() {
 
         //create movies
@@ -126,7 +205,7 @@ public class BookMyShow {
         List<Screen> screens = new ArrayList<>();
         Screen screen1 = new Screen();
         screen1.setScreenId(1);
-        screen1.setSeats(createSeats());
+        screen1.setSeatLayout(getStandardSeatLayout());
         screens.add(screen1);
 
         return screens;
@@ -142,16 +221,26 @@ public class BookMyShow {
         return show;
     }
 
+    //all the screens have the same 100 seat plan, so one SeatLayout is created and shared by all of them
+    private SeatLayout getStandardSeatLayout() {
+        if (standardSeatLayout == null) {
+            standardSeatLayout = SeatLayoutFactory.getSeatLayout(createSeats());
+        }
+        return standardSeatLayout;
+    }
+
     //creating 100 seats
     private List<Seat> createSeats() {
 
         //creating 100 seats for testing purpose, this can be generalised
+        //10 rows of 10 seats each
         List<Seat> seats = new ArrayList<>();
 
         //1 to 40 : SILVER
         for (int i = 0; i < 40; i++) {
             Seat seat = new Seat();
             seat.setSeatId(i);
+            seat.setRow(i / SEATS_PER_ROW);
             seat.setSeatCategory(SeatCategory.SILVER);
             seats.add(seat);
         }
@@ -160,6 +249,7 @@ public class BookMyShow {
         for (int i = 40; i < 70; i++) {
             Seat seat = new Seat();
             seat.setSeatId(i);
+            seat.setRow(i / SEATS_PER_ROW);
             seat.setSeatCategory(SeatCategory.GOLD);
             seats.add(seat);
         }
@@ -168,6 +258,7 @@ public class BookMyShow {
         for (int i = 70; i < 100; i++) {
             Seat seat = new Seat();
             seat.setSeatId(i);
+            seat.setRow(i / SEATS_PER_ROW);
             seat.setSeatCategory(SeatCategory.PLATINUM);
             seats.add(seat);
         }
@@ -0,0 +1,301 @@
+package LowLevelDesign.DesignBookMyShow;
+
+import LowLevelDesign.DesignBookMyShow.Enums.City;
+import LowLevelDesign.DesignBookMyShow.Enums.SeatCategory;
+import LowLevelDesign.DesignDataStructures.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//load generator for sizing the booking service
+//builds a synthetic catalogue (theatres, screens, shows and seats in every City) at the given scale
+//and replays a mixed workload of search, seat map, hold, book and cancel from many user threads,
+//then prints the throughput and latency percentiles of every operation
+//
+//every setting can be changed with key=value arguments, ex:
+//  java LowLevelDesign.DesignBookMyShow.BookMyShowLoadGenerator theatresPerCity=500 users=256 seconds=30
+public class BookMyShowLoadGenerator {
+
+    enum Operation {
+        SEARCH,
+        SEAT_MAP,
+        HOLD,
+        BOOK,
+        CANCEL;
+    }
+
+    static final class Config {
+        int movies = 50;
+        int theatresPerCity = 200;
+        int screensPerTheatre = 4;
+        int showsPerScreen = 5;
+        int seatsPerScreen = 250;
+        int users = 64;
+        int warmupSeconds = 2;
+        int seconds = 10;
+        //operation mix in percent, in the order of Operation
+        int searchPercent = 50;
+        int seatMapPercent = 25;
+        int holdPercent = 10;
+        int bookPercent = 10;
+        int cancelPercent = 5;
+
+        static Config parse(String[] args) {
+            Config config = new Config();
+            for (String arg : args) {
+                String[] keyValue = arg.split("=", 2);
+                if (keyValue.length != 2) {
+                    throw new IllegalArgumentException("Expected key=value but got: " + arg);
+                }
+                try {
+                    Config.class.getDeclaredField(keyValue[0]).setInt(config, Integer.parseInt(keyValue[1]));
+                } catch (NoSuchFieldException | IllegalAccessException e) {
+                    throw new IllegalArgumentException("Unknown setting: " + keyValue[0]);
+                }
+            }
+            if (config.searchPercent + config.seatMapPercent + config.holdPercent + config.bookPercent
+                    + config.cancelPercent != 100) {
+                throw new IllegalArgumentException("Operation percents must add up to 100");
+            }
+            return config;
+        }
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final SeatCategory[] CATEGORIES = SeatCategory.values();
+    private static final int SEATS_PER_ROW = 25;
+    private static final int FIRST_SHOW_MINUTE = 9 * 60;
+    private static final int MINUTES_BETWEEN_SHOWS = 3 * 60;
+    private static final int MOVIE_DURATION = 150;
+
+    static long blackhole;
+
+    final Config config;
+    final MovieController movieController = new MovieController();
+    final TheatreController theatreController = new TheatreController();
+    final SeatHoldController seatHoldController = new SeatHoldController(10, TimeUnit.MINUTES);
+    final List<Movie> movies = new ArrayList<>();
+    final List<Show> allShows = new ArrayList<>();
+    final int[] cumulativePercents = new int[OPERATIONS.length];
+
+    BookMyShowLoadGenerator(Config config) {
+        this.config = config;
+        int[] percents = {config.searchPercent, config.seatMapPercent, config.holdPercent, config.bookPercent,
+                config.cancelPercent};
+        int sum = 0;
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            sum += percents[i];
+            cumulativePercents[i] = sum;
+        }
+    }
+
+    public static void main(String args[]) throws InterruptedException {
+
+        Config config = Config.parse(args);
+        BookMyShowLoadGenerator loadGenerator = new BookMyShowLoadGenerator(config);
+
+        long start = System.nanoTime();
+        loadGenerator.createCatalogue();
+        System.out.printf("catalogue : %d cities, %d theatres, %d shows, %d seats per screen, built in %d ms%n",
+                City.values().length, City.values().length * config.theatresPerCity, loadGenerator.allShows.size(),
+                config.seatsPerScreen, (System.nanoTime() - start) / 1_000_000);
+
+        //Java 17 has no virtual threads, every simulated user is a platform thread
+        Map<Operation, LatencyHistogram> histograms = loadGenerator.run();
+        loadGenerator.seatHoldController.shutdown();
+
+        System.out.printf("%d users, %d s%n", config.users, config.seconds);
+        System.out.printf("%-9s %10s %10s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "ops/s", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us");
+        LatencyHistogram all = new LatencyHistogram();
+        for (Operation operation : OPERATIONS) {
+            print(operation.name(), histograms.get(operation), config.seconds);
+            all.add(histograms.get(operation));
+        }
+        print("ALL", all, config.seconds);
+    }
+
+    private static void print(String name, LatencyHistogram histogram, int seconds) {
+        System.out.printf("%-9s %10d %10.0f %9.1f %9.1f %9.1f %9.1f %9.1f%n", name, histogram.getTotalCount(),
+                (double) histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    private Map<Operation, LatencyHistogram> run() throws InterruptedException {
+
+        CountDownLatch startLatch = new CountDownLatch(1);
+        Thread[] users = new Thread[config.users];
+        List<LatencyHistogram[]> userHistograms = new ArrayList<>();
+        long[] window = new long[2];
+
+        for (int u = 0; u < config.users; u++) {
+            LatencyHistogram[] histograms = new LatencyHistogram[OPERATIONS.length];
+            for (int i = 0; i < histograms.length; i++) {
+                histograms[i] = new LatencyHistogram();
+            }
+            userHistograms.add(histograms);
+
+            users[u] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                List<SeatHold> myBookings = new ArrayList<>();
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (true) {
+                    Operation operation = nextOperation(random.nextInt(100));
+                    if (operation == Operation.CANCEL && myBookings.isEmpty()) {
+                        operation = Operation.BOOK;
+                    }
+                    long begin = System.nanoTime();
+                    if (begin >= window[1]) {
+                        break;
+                    }
+                    execute(operation, random, myBookings);
+                    if (begin >= window[0]) {
+                        histograms[operation.ordinal()].record(System.nanoTime() - begin);
+                    }
+                }
+            }, "user-" + u);
+            users[u].start();
+        }
+
+        window[0] = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.warmupSeconds);
+        window[1] = window[0] + TimeUnit.SECONDS.toNanos(config.seconds);
+        startLatch.countDown();
+        for (Thread user : users) {
+            user.join();
+        }
+
+        Map<Operation, LatencyHistogram> histograms = new HashMap<>();
+        for (Operation operation : OPERATIONS) {
+            LatencyHistogram merged = new LatencyHistogram();
+            for (LatencyHistogram[] userHistogram : userHistograms) {
+                merged.add(userHistogram[operation.ordinal()]);
+            }
+            histograms.put(operation, merged);
+        }
+        return histograms;
+    }
+
+    private Operation nextOperation(int percent) {
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            if (percent < cumulativePercents[i]) {
+                return OPERATIONS[i];
+            }
+        }
+        return Operation.SEARCH;
+    }
+
+    private void execute(Operation operation, ThreadLocalRandom random, List<SeatHold> myBookings) {
+
+        switch (operation) {
+            case SEARCH: {
+                Movie movie = movies.get(random.nextInt(movies.size()));
+                City city = City.values()[random.nextInt(City.values().length)];
+                int fromMinute = FIRST_SHOW_MINUTE + random.nextInt(12) * 60;
+                blackhole += theatreController.getShows(movie, city, fromMinute, fromMinute + 4 * 60).size();
+                break;
+            }
+            case SEAT_MAP: {
+                Show show = allShows.get(random.nextInt(allShows.size()));
+                blackhole += show.getBookedSeatIds().size();
+                for (SeatCategory seatCategory : CATEGORIES) {
+                    blackhole += show.getFreeSeats(seatCategory);
+                }
+                break;
+            }
+            case HOLD: {
+                //user picks seats and walks away before paying
+                SeatHold hold = holdSeats(random);
+                if (hold != null) {
+                    seatHoldController.release(hold);
+                }
+                break;
+            }
+            case BOOK: {
+                SeatHold hold = holdSeats(random);
+                if (hold != null && seatHoldController.confirm(hold)) {
+                    myBookings.add(hold);
+                }
+                break;
+            }
+            case CANCEL: {
+                SeatHold hold = myBookings.remove(myBookings.size() - 1);
+                seatHoldController.cancel(hold);
+                break;
+            }
+        }
+    }
+
+    private SeatHold holdSeats(ThreadLocalRandom random) {
+        Show show = allShows.get(random.nextInt(allShows.size()));
+        SeatCategory seatCategory = CATEGORIES[random.nextInt(CATEGORIES.length)];
+        return seatHoldController.holdBestSeats(show, seatCategory, 1 + random.nextInt(4));
+    }
+
+    void createCatalogue() {
+
+        for (int m = 0; m < config.movies; m++) {
+            Movie movie = new Movie();
+            movie.setMovieId(m);
+            movie.setMovieName("MOVIE-" + m);
+            movie.setMovieDuration(MOVIE_DURATION);
+            movies.add(movie);
+            for (City city : City.values()) {
+                movieController.addMovie(movie, city);
+            }
+        }
+
+        //every screen has the same seat plan, so they all share one SeatLayout
+        List<Seat> seats = new ArrayList<>();
+        for (int i = 0; i < config.seatsPerScreen; i++) {
+            Seat seat = new Seat();
+            seat.setSeatId(i);
+            seat.setRow(i / SEATS_PER_ROW);
+            seat.setSeatCategory(CATEGORIES[(int) ((long) i * CATEGORIES.length / config.seatsPerScreen)]);
+            seats.add(seat);
+        }
+        SeatLayout seatLayout = SeatLayoutFactory.getSeatLayout(seats);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int theatreId = 0;
+        int screenId = 0;
+        int showId = 0;
+        for (City city : City.values()) {
+            for (int t = 0; t < config.theatresPerCity; t++) {
+                Theatre theatre = new Theatre();
+                theatre.setTheatreId(theatreId++);
+                theatre.setCity(city);
+                List<Screen> screens = new ArrayList<>();
+                List<Show> shows = new ArrayList<>();
+                for (int s = 0; s < config.screensPerTheatre; s++) {
+                    Screen screen = new Screen();
+                    screen.setScreenId(screenId++);
+                    screen.setSeatLayout(seatLayout);
+                    screens.add(screen);
+                    for (int slot = 0; slot < config.showsPerScreen; slot++) {
+                        Show show = new Show();
+                        show.setShowId(showId++);
+                        show.setScreen(screen);
+                        show.setMovie(movies.get(random.nextInt(movies.size())));
+                        show.setShowStartMinute(FIRST_SHOW_MINUTE + slot * MINUTES_BETWEEN_SHOWS);
+                        shows.add(show);
+                    }
+                }
+                theatre.setScreen(screens);
+                theatre.setShows(shows);
+                theatreController.addTheatre(theatre, city);
+                allShows.addAll(shows);
+            }
+        }
+    }
+}
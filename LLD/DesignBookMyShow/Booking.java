@@ -1,13 +1,17 @@
 package LowLevelDesign.DesignBookMyShow;
 
+import LowLevelDesign.DesignBookMyShow.Enums.BookingStatus;
+
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class Booking {
 
     Show show;
     List<Seat> bookedSeats = new ArrayList<>();
     Payment payment;
+    final AtomicReference<BookingStatus> status = new AtomicReference<>(BookingStatus.BOOKED);
 
     public Show getShow() {
         return show;
@@ -32,4 +36,13 @@ public class Booking {
     public void setPayment(Payment payment) {
         this.payment = payment;
     }
+
+    public BookingStatus getStatus() {
+        return status.get();
+    }
+
+    //true only for the first cancel, the seats are released by whoever wins it
+    boolean cancel() {
+        return status.compareAndSet(BookingStatus.BOOKED, BookingStatus.CANCELLED);
+    }
 }
@@ -0,0 +1,197 @@
+package LowLevelDesign.DesignBookMyShow;
+
+import LowLevelDesign.DesignBookMyShow.Enums.SeatCategory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+//throughput and p99 latency of ShardedBookingEngine vs one global lock around the seat booking
+//1, 8 and 64 client threads book 2 random seats of a few blockbuster shows, and cancel them again when booked
+//every client waits for its booking before sending the next one, latency is submit -> booking received
+public class BookingEngineBenchmark {
+
+    private static final int[] CLIENT_COUNTS = {1, 8, 64};
+    private static final int NO_OF_HOT_SHOWS = 8;
+    private static final int NO_OF_SEATS = 500;
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final long WARMUP_MILLIS = 1000;
+    private static final long MEASURE_MILLIS = 2000;
+
+    interface BookingService {
+        Booking book(Show show, int... seatIds);
+        void cancel(Booking booking);
+    }
+
+    //baseline : every booking of every show goes through the same lock
+    static final class GlobalLockBookingService implements BookingService {
+
+        private final Object lock = new Object();
+
+        @Override
+        public Booking book(Show show, int... seatIds) {
+            synchronized (lock) {
+                if (!show.bookSeats(seatIds)) {
+                    return null;
+                }
+                Booking booking = new Booking();
+                List<Seat> bookedSeats = new ArrayList<>();
+                for (int seatId : seatIds) {
+                    bookedSeats.add(show.getScreen().getSeat(seatId));
+                }
+                booking.setBookedSeats(bookedSeats);
+                booking.setShow(show);
+                return booking;
+            }
+        }
+
+        @Override
+        public void cancel(Booking booking) {
+            synchronized (lock) {
+                if (!booking.cancel()) {
+                    return;
+                }
+                for (Seat seat : booking.getBookedSeats()) {
+                    booking.getShow().releaseSeats(seat.getSeatId());
+                }
+            }
+        }
+    }
+
+    static final class EngineBookingService implements BookingService {
+
+        private final ShardedBookingEngine engine;
+
+        EngineBookingService(ShardedBookingEngine engine) {
+            this.engine = engine;
+        }
+
+        @Override
+        public Booking book(Show show, int... seatIds) {
+            return engine.book(show, seatIds).join();
+        }
+
+        @Override
+        public void cancel(Booking booking) {
+            engine.cancel(booking).join();
+        }
+    }
+
+    public static void main(String args[]) throws InterruptedException {
+
+        int noOfShards = Runtime.getRuntime().availableProcessors();
+        System.out.println(noOfShards + " booking shards, " + NO_OF_HOT_SHOWS + " hot shows of " + NO_OF_SEATS + " seats");
+
+        for (int clients : CLIENT_COUNTS) {
+            Result lockResult = run(clients, new GlobalLockBookingService());
+
+            ShardedBookingEngine engine = new ShardedBookingEngine(noOfShards, QUEUE_CAPACITY);
+            Result engineResult = run(clients, new EngineBookingService(engine));
+            engine.shutdown();
+
+            System.out.printf("%2d clients  global lock : %8.0f ops/s p99 %7.1f us   sharded engine : %8.0f ops/s p99 %7.1f us%n",
+                    clients, lockResult.opsPerSecond, lockResult.p99Micros,
+                    engineResult.opsPerSecond, engineResult.p99Micros);
+        }
+    }
+
+    static final class Result {
+        double opsPerSecond;
+        double p99Micros;
+    }
+
+    private static Result run(int noOfClients, BookingService service) throws InterruptedException {
+
+        Show[] shows = createShows();
+        long[][] latencies = new long[noOfClients][];
+        int[] counts = new int[noOfClients];
+        CountDownLatch startLatch = new CountDownLatch(1);
+        Thread[] clients = new Thread[noOfClients];
+        long[] window = new long[2];
+
+        for (int c = 0; c < noOfClients; c++) {
+            int client = c;
+            clients[c] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long[] samples = new long[1 << 16];
+                int count = 0;
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (true) {
+                    long start = System.nanoTime();
+                    if (start >= window[1]) {
+                        break;
+                    }
+                    Show show = shows[random.nextInt(shows.length)];
+                    int seatId = random.nextInt(NO_OF_SEATS - 1);
+                    Booking booking = service.book(show, seatId, seatId + 1);
+                    if (booking != null) {
+                        service.cancel(booking);
+                    }
+                    long end = System.nanoTime();
+                    if (start >= window[0]) {
+                        if (count == samples.length) {
+                            samples = Arrays.copyOf(samples, count * 2);
+                        }
+                        samples[count++] = end - start;
+                    }
+                }
+                latencies[client] = samples;
+                counts[client] = count;
+            });
+            clients[c].start();
+        }
+
+        window[0] = System.nanoTime() + WARMUP_MILLIS * 1_000_000;
+        window[1] = window[0] + MEASURE_MILLIS * 1_000_000;
+        startLatch.countDown();
+        for (Thread thread : clients) {
+            thread.join();
+        }
+
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        long[] all = new long[total];
+        int from = 0;
+        for (int c = 0; c < noOfClients; c++) {
+            System.arraycopy(latencies[c], 0, all, from, counts[c]);
+            from += counts[c];
+        }
+        Arrays.sort(all);
+
+        Result result = new Result();
+        result.opsPerSecond = total / (MEASURE_MILLIS / 1000.0);
+        result.p99Micros = total == 0 ? 0 : all[(int) Math.min(total - 1, (long) Math.ceil(total * 0.99) - 1)] / 1000.0;
+        return result;
+    }
+
+    private static Show[] createShows() {
+
+        List<Seat> seats = new ArrayList<>();
+        for (int i = 0; i < NO_OF_SEATS; i++) {
+            Seat seat = new Seat();
+            seat.setSeatId(i);
+            seat.setRow(i / 20);
+            seat.setSeatCategory(SeatCategory.SILVER);
+            seats.add(seat);
+        }
+        Screen screen = new Screen();
+        screen.setScreenId(1);
+        screen.setSeats(seats);
+
+        Show[] shows = new Show[NO_OF_HOT_SHOWS];
+        for (int i = 0; i < NO_OF_HOT_SHOWS; i++) {
+            shows[i] = new Show();
+            shows[i].setShowId(i + 1);
+            shows[i].setScreen(screen);
+        }
+        return shows;
+    }
+}
@@ -0,0 +1,577 @@
+package LowLevelDesign.DesignBookMyShow;
+
+import LowLevelDesign.DesignBookMyShow.Enums.SeatCategory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+//write ahead journal of the confirmed bookings, so the booked seats survive a restart
+//
+//journal : append only segment files journal-<first lsn>.log, every record is
+//          [length 4][crc32 4][lsn 8][type 1][showId 4][noOfSeats 2][seatId 4]...
+//          a torn or corrupt record at the tail (crash in the middle of a write) ends the journal and is cut off
+//group commit : bookings append their record to an in-memory buffer and then wait for it to be durable,
+//          the first waiter writes and fsyncs the whole buffer, so one fsync covers every booking appended meanwhile
+//snapshot : after every snapshotInterval records the seat bitmaps of all the shows are written to snapshot.bin
+//          and the older journal segments are deleted, recovery loads the snapshot and replays only the journal after it.
+//          the group commit only copies the bitmaps and starts a new segment, the snapshot is written, fsynced and
+//          renamed into place by a background thread, so bookings do not wait for it
+//failure : a failed write or fsync cuts the segment back to where the batch started and fails the journal for good,
+//          every later append and sync throws, as the records of the batch may or may not be on the disk.
+//          a failed snapshot does not, the journal is still complete without it and the next interval tries again
+//
+//the journal keeps its own copy of the durable seat bitmaps, updated in lsn order as batches become durable,
+//so a snapshot never contains a seat which was held or booked in memory but not yet journaled
+public class BookingJournal implements AutoCloseable {
+
+    static final byte BOOK = 1;
+    static final byte RELEASE = 2;
+
+    private static final long SNAPSHOT_MAGIC = 0x424D53536E617031L; //"BMSSnap1"
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+
+    final Path directory;
+    final long snapshotInterval;
+
+    //guarded by this : records appended but not yet written
+    ByteBuffer pendingRecords = ByteBuffer.allocate(64 * 1024);
+    long lastLsn;
+
+    //guarded by flushLock
+    final Object flushLock = new Object();
+    ByteBuffer spareRecords = ByteBuffer.allocate(64 * 1024);
+    FileChannel segment;
+    Path segmentFile;
+    final Map<Integer, long[]> durableSeats = new HashMap<>();
+    long recordsSinceSnapshot;
+    long syncCount;
+    long snapshotLsn;
+    volatile long durableLsn;
+    //set once, by the first failed write or fsync
+    volatile IOException failure;
+    IOException snapshotFailure;
+    //writing the last snapshot, null or finished when there is none in progress
+    Thread snapshotThread;
+
+    final CRC32 appendCrc = new CRC32();
+
+    private BookingJournal(Path directory, long snapshotInterval) {
+        this.directory = directory;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    //opens the journal in the directory, recovering the bookings written before the last shutdown or crash
+    public static BookingJournal open(Path directory, long snapshotInterval) throws IOException {
+
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("Illegal snapshot interval: " + snapshotInterval);
+        }
+        Files.createDirectories(directory);
+        BookingJournal journal = new BookingJournal(directory, snapshotInterval);
+        journal.recover();
+        return journal;
+    }
+
+    //seat bitmap recovered for the show, null if nothing was ever booked for it
+    public long[] getBookedSeats(int showId) {
+        synchronized (flushLock) {
+            long[] words = durableSeats.get(showId);
+            return words == null ? null : words.clone();
+        }
+    }
+
+    //copies the recovered booked seats into the shows, to be called once after open()
+    public void restore(List<Show> shows) {
+        for (Show show : shows) {
+            long[] words = getBookedSeats(show.getShowId());
+            if (words != null) {
+                show.restoreBookedSeats(words);
+            }
+        }
+    }
+
+    //returns after the record is on the disk
+    public void logBooking(int showId, int... seatIds) {
+        sync(append(BOOK, showId, seatIds));
+    }
+
+    public void logRelease(int showId, int... seatIds) {
+        sync(append(RELEASE, showId, seatIds));
+    }
+
+    long append(byte type, int showId, int[] seatIds) {
+
+        int payloadSize = 8 + 1 + 4 + 2 + 4 * seatIds.length;
+        if (seatIds.length > Short.MAX_VALUE || RECORD_HEADER_SIZE + payloadSize > MAX_RECORD_SIZE) {
+            throw new IllegalArgumentException("Too many seats in one record: " + seatIds.length);
+        }
+        synchronized (this) {
+            checkNotFailed();
+            if (pendingRecords.remaining() < RECORD_HEADER_SIZE + payloadSize) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(pendingRecords.capacity() * 2,
+                        pendingRecords.position() + RECORD_HEADER_SIZE + payloadSize));
+                pendingRecords.flip();
+                bigger.put(pendingRecords);
+                pendingRecords = bigger;
+            }
+            long lsn = ++lastLsn;
+            int start = pendingRecords.position();
+            pendingRecords.putInt(payloadSize).putInt(0);
+            pendingRecords.putLong(lsn).put(type).putInt(showId).putShort((short) seatIds.length);
+            for (int seatId : seatIds) {
+                pendingRecords.putInt(seatId);
+            }
+            appendCrc.reset();
+            appendCrc.update(pendingRecords.array(), start + RECORD_HEADER_SIZE, payloadSize);
+            pendingRecords.putInt(start + 4, (int) appendCrc.getValue());
+            return lsn;
+        }
+    }
+
+    //waits until the record with this lsn is durable, writing and fsyncing the pending batch if nobody else is
+    void sync(long lsn) {
+        if (durableLsn >= lsn) {
+            return;
+        }
+        synchronized (flushLock) {
+            //the previous leader may have flushed our record while we waited for the lock
+            if (durableLsn >= lsn) {
+                return;
+            }
+            checkNotFailed();
+            ByteBuffer batch;
+            long batchLsn;
+            synchronized (this) {
+                batch = pendingRecords;
+                batchLsn = lastLsn;
+                spareRecords.clear();
+                pendingRecords = spareRecords;
+            }
+            spareRecords = batch;
+            batch.flip();
+            long batchStart = -1;
+            try {
+                batchStart = segment.size();
+                while (batch.hasRemaining()) {
+                    segment.write(batch);
+                }
+                segment.force(false);
+            } catch (IOException e) {
+                //the callers of this batch get an error, so none of it may come back at recovery
+                if (batchStart >= 0) {
+                    try {
+                        segment.truncate(batchStart);
+                        segment.force(false);
+                    } catch (IOException truncateFailure) {
+                        e.addSuppressed(truncateFailure);
+                    }
+                }
+                failure = e;
+                throw new UncheckedIOException("Booking journal write failed", e);
+            }
+            syncCount++;
+
+            batch.flip();
+            while (batch.hasRemaining()) {
+                //skip length and crc, the record was written by us
+                batch.position(batch.position() + RECORD_HEADER_SIZE);
+                applyRecord(batch);
+                recordsSinceSnapshot++;
+            }
+            durableLsn = batchLsn;
+
+            if (recordsSinceSnapshot >= snapshotInterval && (snapshotThread == null || !snapshotThread.isAlive())) {
+                startSnapshot();
+            }
+        }
+    }
+
+    //flushLock held : copies the durable bitmaps and starts a new journal segment after them, the rest is done
+    //by the snapshot thread without the lock
+    private void startSnapshot() {
+
+        long lsn = durableLsn;
+        Path firstSegmentAfter;
+        try {
+            startSegment(lsn + 1);
+            firstSegmentAfter = segmentFile;
+        } catch (IOException e) {
+            //still on the old segment, the next batch tries again
+            snapshotFailure = e;
+            return;
+        }
+        Map<Integer, long[]> seats = new HashMap<>(durableSeats.size() * 2);
+        for (Map.Entry<Integer, long[]> entry : durableSeats.entrySet()) {
+            seats.put(entry.getKey(), entry.getValue().clone());
+        }
+        recordsSinceSnapshot = 0;
+
+        snapshotThread = new Thread(() -> {
+            IOException snapshotError = null;
+            try {
+                writeSnapshot(lsn, seats, firstSegmentAfter);
+            } catch (IOException e) {
+                //journal is still complete without it, the older segments are kept and replayed
+                snapshotError = e;
+            }
+            synchronized (flushLock) {
+                snapshotFailure = snapshotError;
+                if (snapshotError == null) {
+                    snapshotLsn = lsn;
+                }
+            }
+        }, "booking-snapshot");
+        snapshotThread.setDaemon(true);
+        snapshotThread.start();
+    }
+
+    //writes the bitmaps as of lsn, then deletes the segments before firstSegmentAfter, which it covers
+    private void writeSnapshot(long lsn, Map<Integer, long[]> seats, Path firstSegmentAfter) throws IOException {
+
+        Path tempFile = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        CheckedOutputStream checked = new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempFile)), new CRC32());
+        try (DataOutputStream out = new DataOutputStream(checked)) {
+            out.writeLong(SNAPSHOT_MAGIC);
+            out.writeLong(lsn);
+            out.writeInt(seats.size());
+            for (Map.Entry<Integer, long[]> entry : seats.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                for (long word : entry.getValue()) {
+                    out.writeLong(word);
+                }
+            }
+            out.writeLong(checked.getChecksum().getValue());
+        }
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tempFile, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        //the rename itself is in the directory, without this a crash can bring the old snapshot back
+        //after the segments it covers are deleted
+        syncDirectory();
+
+        //segment names sort by their first lsn, every record of the earlier ones is in the snapshot
+        for (Path oldSegment : listSegments()) {
+            if (oldSegment.getFileName().compareTo(firstSegmentAfter.getFileName()) < 0) {
+                Files.delete(oldSegment);
+            }
+        }
+    }
+
+    private void recover() throws IOException {
+
+        Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshotFile)) {
+            loadSnapshot(snapshotFile);
+        }
+        long maxLsn = snapshotLsn;
+
+        List<Path> segments = listSegments();
+        for (int i = 0; i < segments.size(); i++) {
+            long[] lastLsnAndEnd = replaySegment(segments.get(i));
+            maxLsn = Math.max(maxLsn, lastLsnAndEnd[0]);
+            long validEnd = lastLsnAndEnd[1];
+            if (validEnd < Files.size(segments.get(i))) {
+                //torn write at the crash, nothing after it was acknowledged
+                try (FileChannel channel = FileChannel.open(segments.get(i), StandardOpenOption.WRITE)) {
+                    channel.truncate(validEnd);
+                    channel.force(true);
+                }
+                for (int j = i + 1; j < segments.size(); j++) {
+                    Files.delete(segments.get(j));
+                }
+                segments = segments.subList(0, i + 1);
+                break;
+            }
+        }
+
+        lastLsn = maxLsn;
+        durableLsn = maxLsn;
+        if (segments.isEmpty()) {
+            startSegment(maxLsn + 1);
+        } else {
+            segmentFile = segments.get(segments.size() - 1);
+            segment = FileChannel.open(segmentFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+
+    private void loadSnapshot(Path snapshotFile) throws IOException {
+
+        CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshotFile)), new CRC32());
+        try (DataInputStream in = new DataInputStream(checked)) {
+            if (in.readLong() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a booking snapshot: " + snapshotFile);
+            }
+            long lsn = in.readLong();
+            int noOfShows = in.readInt();
+            Map<Integer, long[]> seats = new HashMap<>();
+            for (int i = 0; i < noOfShows; i++) {
+                int showId = in.readInt();
+                long[] words = new long[in.readInt()];
+                for (int w = 0; w < words.length; w++) {
+                    words[w] = in.readLong();
+                }
+                seats.put(showId, words);
+            }
+            long expectedCrc = checked.getChecksum().getValue();
+            if (in.readLong() != expectedCrc) {
+                //snapshot is renamed into place only after it is complete, so this is real corruption
+                throw new IOException("Booking snapshot checksum mismatch: " + snapshotFile);
+            }
+            durableSeats.putAll(seats);
+            snapshotLsn = lsn;
+        }
+    }
+
+    //applies the records after the snapshot, returns {last lsn, end offset of the last valid record}
+    private long[] replaySegment(Path segmentPath) throws IOException {
+
+        byte[] bytes = Files.readAllBytes(segmentPath);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        CRC32 crc = new CRC32();
+        long lastLsnInSegment = 0;
+
+        while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+            int start = buffer.position();
+            int payloadSize = buffer.getInt();
+            int expectedCrc = buffer.getInt();
+            if (payloadSize <= 0 || payloadSize > MAX_RECORD_SIZE || payloadSize > buffer.remaining()) {
+                buffer.position(start);
+                break;
+            }
+            crc.reset();
+            crc.update(bytes, buffer.position(), payloadSize);
+            if ((int) crc.getValue() != expectedCrc) {
+                buffer.position(start);
+                break;
+            }
+            int end = buffer.position() + payloadSize;
+            long lsn = buffer.getLong(buffer.position());
+            if (lsn > snapshotLsn) {
+                applyRecord(buffer);
+                recordsSinceSnapshot++;
+            }
+            buffer.position(end);
+            lastLsnInSegment = lsn;
+        }
+        return new long[] {lastLsnInSegment, buffer.position()};
+    }
+
+    //reads one record payload at the buffer position into durableSeats
+    private void applyRecord(ByteBuffer buffer) {
+        buffer.getLong();
+        byte type = buffer.get();
+        int showId = buffer.getInt();
+        int noOfSeats = buffer.getShort();
+        for (int i = 0; i < noOfSeats; i++) {
+            int seatId = buffer.getInt();
+            long[] words = durableSeats.get(showId);
+            if (words == null || (seatId >>> 6) >= words.length) {
+                words = words == null ? new long[(seatId >>> 6) + 1] : Arrays.copyOf(words, (seatId >>> 6) + 1);
+                durableSeats.put(showId, words);
+            }
+            if (type == BOOK) {
+                words[seatId >>> 6] |= 1L << (seatId & 63);
+            } else {
+                words[seatId >>> 6] &= ~(1L << (seatId & 63));
+            }
+        }
+    }
+
+    private void checkNotFailed() {
+        if (failure != null) {
+            throw new UncheckedIOException("Booking journal failed earlier, reopen it to recover", failure);
+        }
+    }
+
+    private void syncDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().matches("journal-\\d{20}\\.log"))
+                    .sorted()
+                    .forEach(segments::add);
+        }
+        return segments;
+    }
+
+    private void startSegment(long firstLsn) throws IOException {
+        //the new segment is open and its name durable before the old one is closed, so a failure keeps the old one
+        Path newSegmentFile = directory.resolve(String.format("journal-%020d.log", firstLsn));
+        FileChannel newSegment = FileChannel.open(newSegmentFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            syncDirectory();
+        } catch (IOException e) {
+            newSegment.close();
+            throw e;
+        }
+        if (segment != null) {
+            segment.close();
+        }
+        segment = newSegment;
+        segmentFile = newSegmentFile;
+    }
+
+    public long getSyncCount() {
+        synchronized (flushLock) {
+            return syncCount;
+        }
+    }
+
+    public long getDurableLsn() {
+        return durableLsn;
+    }
+
+    //last snapshot failure, null once a snapshot succeeds again
+    public IOException getSnapshotFailure() {
+        synchronized (flushLock) {
+            return snapshotFailure;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        long lsn;
+        synchronized (this) {
+            lsn = lastLsn;
+        }
+        try {
+            if (failure == null) {
+                sync(lsn);
+            }
+        } finally {
+            //the last sync may have started a snapshot as well
+            Thread snapshotInProgress;
+            synchronized (flushLock) {
+                snapshotInProgress = snapshotThread;
+            }
+            if (snapshotInProgress != null) {
+                try {
+                    snapshotInProgress.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            synchronized (flushLock) {
+                segment.close();
+            }
+        }
+    }
+
+    public static void main(String args[]) throws Exception {
+
+        Path directory = Files.createTempDirectory("booking-journal");
+        int noOfShows = 10_000;
+
+        //32 users booking in parallel, their fsyncs are batched by the group commit
+        List<Show> shows = createShows(noOfShows);
+        long start = System.nanoTime();
+        try (BookingJournal journal = BookingJournal.open(directory, 50_000)) {
+            Thread[] users = new Thread[32];
+            for (int u = 0; u < users.length; u++) {
+                users[u] = new Thread(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 5_000; i++) {
+                        Show show = shows.get(random.nextInt(noOfShows));
+                        int seatId = random.nextInt(99);
+                        if (show.bookSeats(seatId, seatId + 1)) {
+                            journal.logBooking(show.getShowId(), seatId, seatId + 1);
+                        }
+                    }
+                });
+                users[u].start();
+            }
+            for (Thread user : users) {
+                user.join();
+            }
+            System.out.printf("%d bookings journaled with %d fsyncs in %d ms%n", journal.getDurableLsn(),
+                    journal.getSyncCount(), (System.nanoTime() - start) / 1_000_000);
+        }
+
+        //crash in the middle of a write leaves a torn record at the tail
+        try (Stream<Path> files = Files.list(directory)) {
+            Path lastSegment = files.filter(file -> file.toString().endsWith(".log")).sorted()
+                    .reduce((first, second) -> second).get();
+            Files.write(lastSegment, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+        }
+
+        //restart
+        start = System.nanoTime();
+        List<Show> recoveredShows = createShows(noOfShows);
+        try (BookingJournal journal = BookingJournal.open(directory, 50_000)) {
+            journal.restore(recoveredShows);
+            System.out.printf("recovered in %d ms, snapshot lsn %d, replayed %d journal records%n",
+                    (System.nanoTime() - start) / 1_000_000, journal.snapshotLsn, journal.recordsSinceSnapshot);
+        }
+
+        int mismatches = 0;
+        for (int i = 0; i < noOfShows; i++) {
+            if (!shows.get(i).getBookedSeatIds().equals(recoveredShows.get(i).getBookedSeatIds())) {
+                mismatches++;
+            }
+        }
+        System.out.println("shows with different seats after recovery : " + mismatches);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private static List<Show> createShows(int noOfShows) {
+
+        List<Seat> seats = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Seat seat = new Seat();
+            seat.setSeatId(i);
+            seat.setRow(i / 10);
+            seat.setSeatCategory(SeatCategory.SILVER);
+            seats.add(seat);
+        }
+        Screen screen = new Screen();
+        screen.setSeats(seats);
+
+        List<Show> shows = new ArrayList<>();
+        for (int i = 0; i < noOfShows; i++) {
+            Show show = new Show();
+            show.setShowId(i);
+            show.setScreen(screen);
+            shows.add(show);
+        }
+        return shows;
+    }
+}
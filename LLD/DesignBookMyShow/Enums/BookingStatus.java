@@ -0,0 +1,7 @@
+package LowLevelDesign.DesignBookMyShow.Enums;
+
+public enum BookingStatus {
+
+    BOOKED,
+    CANCELLED;
+}
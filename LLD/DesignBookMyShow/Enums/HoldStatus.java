@@ -0,0 +1,11 @@
+package LowLevelDesign.DesignBookMyShow.Enums;
+
+public enum HoldStatus {
+
+    HELD,
+    CONFIRMING,
+    CONFIRMED,
+    RELEASED,
+    EXPIRED,
+    CANCELLED;
+}
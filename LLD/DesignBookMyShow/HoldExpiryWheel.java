@@ -0,0 +1,120 @@
+package LowLevelDesign.DesignBookMyShow;
+
+import LowLevelDesign.DesignBookMyShow.Enums.HoldStatus;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//hashed timing wheel which expires the seat holds
+//wheel is an array of buckets, each bucket is an intrusive list of holds, one bucket is processed per tick
+//a hold further away than one full rotation waits for its remainingRounds to reach 0
+//adding a hold and expiring it are both O(1), confirmed or released holds are just skipped when their bucket comes up
+public class HoldExpiryWheel {
+
+    final long tickNanos;
+    final SeatHold[] buckets;
+    final int mask;
+    final long startNanos;
+
+    //holds are added from many booking threads, but only the wheel thread touches the buckets
+    final ConcurrentLinkedQueue<SeatHold> pendingHolds = new ConcurrentLinkedQueue<>();
+    long currentTick;
+
+    final AtomicLong expiredCount = new AtomicLong();
+    final Thread wheelThread;
+    volatile boolean running = true;
+
+    HoldExpiryWheel(long tickDuration, TimeUnit unit, int noOfBuckets) {
+        if (tickDuration <= 0 || noOfBuckets <= 0) {
+            throw new IllegalArgumentException("Illegal tick duration or no of buckets");
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(noOfBuckets * 2 - 1);
+        this.buckets = new SeatHold[size];
+        this.mask = size - 1;
+        this.startNanos = System.nanoTime();
+
+        wheelThread = new Thread(this::run, "hold-expiry-wheel");
+        wheelThread.setDaemon(true);
+        wheelThread.start();
+    }
+
+    void add(SeatHold hold) {
+        pendingHolds.add(hold);
+    }
+
+    void shutdown() {
+        running = false;
+        wheelThread.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long nextTickNanos = startNanos + (currentTick + 1) * tickNanos;
+            long sleepNanos = nextTickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                }
+                continue;
+            }
+            transferPendingHolds();
+            expireBucket((int) (currentTick & mask));
+            currentTick++;
+        }
+    }
+
+    private void transferPendingHolds() {
+        SeatHold hold;
+        while ((hold = pendingHolds.poll()) != null) {
+            if (hold.getStatus() != HoldStatus.HELD) {
+                continue;
+            }
+            long deadlineTick = Math.max(currentTick, (hold.expiresAtNanos - startNanos + tickNanos - 1) / tickNanos);
+            hold.remainingRounds = (deadlineTick - currentTick) / buckets.length;
+            int index = (int) (deadlineTick & mask);
+            hold.wheelPrev = null;
+            hold.wheelNext = buckets[index];
+            if (buckets[index] != null) {
+                buckets[index].wheelPrev = hold;
+            }
+            buckets[index] = hold;
+        }
+    }
+
+    private void expireBucket(int index) {
+        SeatHold hold = buckets[index];
+        while (hold != null) {
+            SeatHold next = hold.wheelNext;
+            if (hold.getStatus() != HoldStatus.HELD) {
+                unlink(index, hold);
+            } else if (hold.remainingRounds > 0) {
+                hold.remainingRounds--;
+            } else {
+                unlink(index, hold);
+                if (hold.end(HoldStatus.EXPIRED)) {
+                    expiredCount.incrementAndGet();
+                }
+            }
+            hold = next;
+        }
+    }
+
+    private void unlink(int index, SeatHold hold) {
+        if (hold.wheelPrev == null) {
+            buckets[index] = hold.wheelNext;
+        } else {
+            hold.wheelPrev.wheelNext = hold.wheelNext;
+        }
+        if (hold.wheelNext != null) {
+            hold.wheelNext.wheelPrev = hold.wheelPrev;
+        }
+        hold.wheelPrev = null;
+        hold.wheelNext = null;
+    }
+}
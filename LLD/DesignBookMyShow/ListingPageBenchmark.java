@@ -0,0 +1,81 @@
+package LowLevelDesign.DesignBookMyShow;
+
+import LowLevelDesign.DesignBookMyShow.Enums.SeatCategory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+//"X seats left per category" for a 500 show listing page
+//walking every seat of the screen against the booked seats vs reading the free seat counters of the show
+public class ListingPageBenchmark {
+
+    private static final int NO_OF_SHOWS = 500;
+    private static final int NO_OF_SEATS = 300;
+    private static final int NO_OF_PAGES = 2000;
+    private static final SeatCategory[] CATEGORIES = SeatCategory.values();
+
+    static long blackhole;
+
+    public static void main(String args[]) {
+
+        List<Show> shows = createShows();
+
+        //first rounds warm up the JIT
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int page = 0; page < NO_OF_PAGES; page++) {
+                for (Show show : shows) {
+                    int[] freeSeats = new int[CATEGORIES.length];
+                    for (Seat seat : show.getScreen().getSeats()) {
+                        if (!show.isSeatBooked(seat.getSeatId())) {
+                            freeSeats[seat.getSeatCategory().ordinal()]++;
+                        }
+                    }
+                    blackhole += freeSeats[0];
+                }
+            }
+            long scanNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int page = 0; page < NO_OF_PAGES; page++) {
+                for (Show show : shows) {
+                    for (SeatCategory seatCategory : CATEGORIES) {
+                        blackhole += show.getFreeSeats(seatCategory);
+                    }
+                }
+            }
+            long counterNanos = System.nanoTime() - start;
+
+            System.out.printf("round %d  seat scan : %8.1f us/page   counters : %6.1f us/page%n",
+                    round, scanNanos / 1000.0 / NO_OF_PAGES, counterNanos / 1000.0 / NO_OF_PAGES);
+        }
+    }
+
+    private static List<Show> createShows() {
+
+        List<Seat> seats = new ArrayList<>();
+        for (int i = 0; i < NO_OF_SEATS; i++) {
+            Seat seat = new Seat();
+            seat.setSeatId(i);
+            seat.setRow(i / 20);
+            seat.setSeatCategory(CATEGORIES[i * CATEGORIES.length / NO_OF_SEATS]);
+            seats.add(seat);
+        }
+        Screen screen = new Screen();
+        screen.setSeats(seats);
+
+        Random random = new Random(42);
+        List<Show> shows = new ArrayList<>();
+        for (int i = 0; i < NO_OF_SHOWS; i++) {
+            Show show = new Show();
+            show.setShowId(i);
+            show.setScreen(screen);
+            for (int booking = 0; booking < 100; booking++) {
+                show.bookSeats(random.nextInt(NO_OF_SEATS));
+            }
+            shows.add(show);
+        }
+        return shows;
+    }
+}
@@ -11,10 +11,12 @@ public class MovieController {
 
     Map<City, List<Movie>> cityVsMovies;
     List<Movie> allMovies;
+    Map<String, Movie> movieNameVsMovie;
 
     MovieController(){
         cityVsMovies = new HashMap<>();
         allMovies = new ArrayList<>();
+        movieNameVsMovie = new HashMap<>();
     }
 
 
@@ -22,6 +24,7 @@ public class MovieController {
     void addMovie(Movie movie, City city) {
 
         allMovies.add(movie);
+        movieNameVsMovie.putIfAbsent(movie.getMovieName(), movie);
 
         List<Movie> movies = cityVsMovies.getOrDefault(city, new ArrayList<>());
         movies.add(movie);
@@ -30,13 +33,7 @@ public class MovieController {
 
 
     Movie getMovieByName(String movieName) {
-
-        for(Movie movie : allMovies) {
-            if((movie.getMovieName()).equals(movieName)) {
-                return movie;
-            }
-        }
-        return null;
+        return movieNameVsMovie.get(movieName);
     }
 
 
@@ -0,0 +1,71 @@
+package LowLevelDesign.DesignBookMyShow;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+//bounded ring buffer for many producers and a single consumer
+//every slot has a sequence number: sequence == position means the slot is free for the producer of that position,
+//sequence == position + 1 means the element is published for the consumer
+//producers only race on the tail CAS, the consumer never uses CAS
+class MpscBoundedQueue<E> {
+
+    final AtomicReferenceArray<E> buffer;
+    final AtomicLongArray sequences;
+    final int mask;
+    final AtomicLong tail = new AtomicLong();
+
+    //only read and written by the consumer thread
+    long head;
+
+    MpscBoundedQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity * 2 - 1);
+        buffer = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    //false if the queue is full
+    boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer.lazySet(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                //slot still holds the element of the previous lap
+                return false;
+            }
+            //else another producer took this position, retry with the new tail
+        }
+    }
+
+    //consumer thread only, null if nothing is published
+    E poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        E element = buffer.get(index);
+        buffer.lazySet(index, null);
+        sequences.set(index, head + mask + 1);
+        head++;
+        return element;
+    }
+
+    //consumer thread only
+    boolean isEmpty() {
+        return sequences.get((int) (head & mask)) != head + 1;
+    }
+}
@@ -1,12 +1,17 @@
 package LowLevelDesign.DesignBookMyShow;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class Screen {
 
     int screenId;
-    List<Seat> seats = new ArrayList<>();
+
+    //seat plan, shared with all the other screens which have the same plan
+    SeatLayout seatLayout = SeatLayoutFactory.getSeatLayout(Collections.emptyList());
+
+    //shows running on this screen, unlike the seat plan this is per screen
+    ScreenSchedule schedule = new ScreenSchedule();
 
     public int getScreenId() {
         return screenId;
@@ -17,10 +22,30 @@ public class Screen {
     }
 
     public List<Seat> getSeats() {
-        return seats;
+        return seatLayout.getSeats();
     }
 
     public void setSeats(List<Seat> seats) {
-        this.seats = seats;
+        this.seatLayout = SeatLayoutFactory.getSeatLayout(seats);
+    }
+
+    public SeatLayout getSeatLayout() {
+        return seatLayout;
+    }
+
+    public void setSeatLayout(SeatLayout seatLayout) {
+        this.seatLayout = seatLayout;
+    }
+
+    public ScreenSchedule getSchedule() {
+        return schedule;
+    }
+
+    public Seat getSeat(int seatId) {
+        return seatLayout.getSeat(seatId);
+    }
+
+    public List<SeatRow> getSeatRows() {
+        return seatLayout.getSeatRows();
     }
 }
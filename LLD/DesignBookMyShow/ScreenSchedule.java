@@ -0,0 +1,50 @@
+package LowLevelDesign.DesignBookMyShow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+//shows of one screen as [start, end) minute intervals, sorted by start
+//shows on a screen never overlap, so the intervals sorted by start are sorted by end as well
+//and only the neighbours of a new interval can conflict with it : conflict check, add and range search are O(log n)
+public class ScreenSchedule {
+
+    final TreeMap<Integer, Show> startMinuteVsShow = new TreeMap<>();
+
+    //true if [startMinute, endMinute) overlaps any scheduled show
+    public boolean hasConflict(int startMinute, int endMinute) {
+
+        Map.Entry<Integer, Show> previous = startMinuteVsShow.floorEntry(startMinute);
+        if (previous != null && previous.getValue().getShowEndMinute() > startMinute) {
+            return true;
+        }
+        Map.Entry<Integer, Show> next = startMinuteVsShow.higherEntry(startMinute);
+        return next != null && next.getKey() < endMinute;
+    }
+
+    //false if the show overlaps a show already scheduled on this screen
+    boolean add(Show show) {
+        if (hasConflict(show.getShowStartMinute(), show.getShowEndMinute())) {
+            return false;
+        }
+        startMinuteVsShow.put(show.getShowStartMinute(), show);
+        return true;
+    }
+
+    boolean remove(Show show) {
+        return startMinuteVsShow.remove(show.getShowStartMinute(), show);
+    }
+
+    //shows starting in [fromMinute, toMinute), sorted by start time
+    public List<Show> getShows(int fromMinute, int toMinute) {
+        if (fromMinute >= toMinute) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(startMinuteVsShow.subMap(fromMinute, toMinute).values());
+    }
+
+    public int size() {
+        return startMinuteVsShow.size();
+    }
+}
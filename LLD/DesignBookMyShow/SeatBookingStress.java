@@ -0,0 +1,108 @@
+package LowLevelDesign.DesignBookMyShow;
+
+import LowLevelDesign.DesignBookMyShow.Enums.SeatCategory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+//thousands of users try to book 1 to 4 random seats of the same 100 seat show at the same moment
+//every seat must be given to at most one user, and the seats of a failed booking must stay free
+public class SeatBookingStress {
+
+    private static final int NO_OF_SEATS = 100;
+    private static final int NO_OF_USERS = 5000;
+    private static final int NO_OF_THREADS = 256;
+    private static final int ROUNDS = 20;
+
+    public static void main(String args[]) throws InterruptedException {
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            String failure = runRound();
+            if (failure != null) {
+                System.out.println("round " + round + " FAILED : " + failure);
+                System.exit(1);
+            }
+        }
+        System.out.println(ROUNDS + " rounds of " + NO_OF_USERS + " concurrent users, no double booking");
+    }
+
+    private static String runRound() throws InterruptedException {
+
+        Show show = createShow();
+        AtomicIntegerArray ownersPerSeat = new AtomicIntegerArray(NO_OF_SEATS);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch doneLatch = new CountDownLatch(NO_OF_USERS);
+
+        //Java 17 has no virtual threads, so a large pool of platform threads creates the contention
+        ExecutorService users = Executors.newFixedThreadPool(NO_OF_THREADS);
+        for (int user = 0; user < NO_OF_USERS; user++) {
+            users.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int[] seatIds = new int[1 + random.nextInt(4)];
+                for (int i = 0; i < seatIds.length; i++) {
+                    seatIds[i] = random.nextInt(NO_OF_SEATS);
+                }
+                try {
+                    startLatch.await();
+                    if (show.bookSeats(seatIds)) {
+                        for (int seatId : distinct(seatIds)) {
+                            ownersPerSeat.incrementAndGet(seatId);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    doneLatch.countDown();
+                }
+            });
+        }
+        startLatch.countDown();
+        doneLatch.await();
+        users.shutdown();
+        users.awaitTermination(1, TimeUnit.MINUTES);
+
+        for (int seatId = 0; seatId < NO_OF_SEATS; seatId++) {
+            int owners = ownersPerSeat.get(seatId);
+            if (owners > 1) {
+                return "seat " + seatId + " booked by " + owners + " users";
+            }
+            if ((owners == 1) != show.isSeatBooked(seatId)) {
+                return "seat " + seatId + " state does not match its bookings";
+            }
+        }
+        if (show.getFreeSeats(SeatCategory.SILVER) != NO_OF_SEATS - show.getBookedSeatIds().size()) {
+            return "free seat counter " + show.getFreeSeats(SeatCategory.SILVER) + " does not match the booked seats";
+        }
+        return null;
+    }
+
+    private static int[] distinct(int[] seatIds) {
+        return Arrays.stream(seatIds).distinct().toArray();
+    }
+
+    private static Show createShow() {
+
+        List<Seat> seats = new ArrayList<>();
+        for (int i = 0; i < NO_OF_SEATS; i++) {
+            Seat seat = new Seat();
+            seat.setSeatId(i);
+            seat.setSeatCategory(SeatCategory.SILVER);
+            seats.add(seat);
+        }
+        Screen screen = new Screen();
+        screen.setScreenId(1);
+        screen.setSeats(seats);
+
+        Show show = new Show();
+        show.setShowId(1);
+        show.setScreen(screen);
+        return show;
+    }
+}
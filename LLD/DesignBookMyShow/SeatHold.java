@@ -0,0 +1,75 @@
+package LowLevelDesign.DesignBookMyShow;
+
+import LowLevelDesign.DesignBookMyShow.Enums.HoldStatus;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+//seats kept aside for a user between seat selection and payment
+public class SeatHold {
+
+    final long holdId;
+    final Show show;
+    final int[] seatIds;
+    final long expiresAtNanos;
+    final AtomicReference<HoldStatus> status = new AtomicReference<>(HoldStatus.HELD);
+
+    //links of the timing wheel bucket, only touched by the wheel thread
+    SeatHold wheelPrev;
+    SeatHold wheelNext;
+    long remainingRounds;
+
+    SeatHold(long holdId, Show show, int[] seatIds, long expiresAtNanos) {
+        this.holdId = holdId;
+        this.show = show;
+        this.seatIds = seatIds;
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    public long getHoldId() {
+        return holdId;
+    }
+
+    public Show getShow() {
+        return show;
+    }
+
+    public int[] getSeatIds() {
+        return seatIds.clone();
+    }
+
+    public HoldStatus getStatus() {
+        return status.get();
+    }
+
+    //HELD -> CONFIRMING, false if the hold already expired or was released
+    //neither the expiry nor a cancel can take the hold while its booking is being journaled
+    boolean startConfirm() {
+        return status.compareAndSet(HoldStatus.HELD, HoldStatus.CONFIRMING);
+    }
+
+    //CONFIRMING -> CONFIRMED once the booking is journaled
+    void confirm() {
+        status.set(HoldStatus.CONFIRMED);
+    }
+
+    //CONFIRMING -> RELEASED when the booking could not be journaled, the seats go back to the show
+    void abortConfirm() {
+        if (status.compareAndSet(HoldStatus.CONFIRMING, HoldStatus.RELEASED)) {
+            show.releaseSeats(seatIds);
+        }
+    }
+
+    //CONFIRMED -> CANCELLED, the seats are released by SeatHoldController once the cancellation is journaled
+    boolean cancel() {
+        return status.compareAndSet(HoldStatus.CONFIRMED, HoldStatus.CANCELLED);
+    }
+
+    //HELD -> RELEASED or EXPIRED, the seats go back to the show only on this transition
+    boolean end(HoldStatus endStatus) {
+        if (status.compareAndSet(HoldStatus.HELD, endStatus)) {
+            show.releaseSeats(seatIds);
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,110 @@
+package LowLevelDesign.DesignBookMyShow;
+
+import LowLevelDesign.DesignBookMyShow.Enums.HoldStatus;
+import LowLevelDesign.DesignBookMyShow.Enums.SeatCategory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//seats are first held for a user, and booked only once the payment is done
+//holds which are neither confirmed nor released in time are expired by the HoldExpiryWheel,
+//so seats of abandoned checkouts become free again
+public class SeatHoldController {
+
+    private static final long TICK_MILLIS = 100;
+    private static final int NO_OF_BUCKETS = 1024;
+
+    //other users can take the found seats before we claim them, then search again
+    private static final int MAX_BEST_SEAT_ATTEMPTS = 16;
+
+    final long holdDurationNanos;
+    final HoldExpiryWheel expiryWheel;
+    final AtomicLong holdIdGenerator = new AtomicLong();
+
+    //confirmed bookings are journaled here when set, holds are not as they expire anyway after a restart
+    final BookingJournal bookingJournal;
+
+    SeatHoldController(long holdDuration, TimeUnit unit) {
+        this(holdDuration, unit, null);
+    }
+
+    SeatHoldController(long holdDuration, TimeUnit unit, BookingJournal bookingJournal) {
+        this.holdDurationNanos = unit.toNanos(holdDuration);
+        this.bookingJournal = bookingJournal;
+        this.expiryWheel = new HoldExpiryWheel(TICK_MILLIS, TimeUnit.MILLISECONDS, NO_OF_BUCKETS);
+    }
+
+    //returns null if any of the seats is already held or booked
+    SeatHold holdSeats(Show show, int... seatIds) {
+
+        if (!show.bookSeats(seatIds)) {
+            return null;
+        }
+        SeatHold hold = new SeatHold(holdIdGenerator.incrementAndGet(), show, seatIds.clone(),
+                System.nanoTime() + holdDurationNanos);
+        expiryWheel.add(hold);
+        return hold;
+    }
+
+    //hold the best N side by side seats of the category, returns null if there are no such free seats
+    SeatHold holdBestSeats(Show show, SeatCategory seatCategory, int noOfSeats) {
+
+        for (int attempt = 0; attempt < MAX_BEST_SEAT_ATTEMPTS; attempt++) {
+            int[] seatIds = BestSeatFinder.findBestSeats(show, seatCategory, noOfSeats);
+            if (seatIds == null) {
+                return null;
+            }
+            SeatHold hold = holdSeats(show, seatIds);
+            if (hold != null) {
+                return hold;
+            }
+        }
+        return null;
+    }
+
+    //payment done, seats stay booked for good. false if the hold had already expired
+    //the hold is CONFIRMED only after the booking is journaled, so a cancel can not journal its release before it,
+    //and a booking which failed to be journaled gives its seats back and throws
+    boolean confirm(SeatHold hold) {
+        if (!hold.startConfirm()) {
+            return false;
+        }
+        if (bookingJournal != null) {
+            try {
+                bookingJournal.logBooking(hold.getShow().getShowId(), hold.seatIds);
+            } catch (RuntimeException e) {
+                hold.abortConfirm();
+                throw e;
+            }
+        }
+        hold.confirm();
+        return true;
+    }
+
+    //booked seats go back to the show, false if the hold was never confirmed or is already cancelled
+    boolean cancel(SeatHold hold) {
+        if (!hold.cancel()) {
+            return false;
+        }
+        //journal first : once released, the seats can be booked and journaled by someone else,
+        //and recovery must see that booking after this release
+        if (bookingJournal != null) {
+            bookingJournal.logRelease(hold.getShow().getShowId(), hold.seatIds);
+        }
+        hold.getShow().releaseSeats(hold.seatIds);
+        return true;
+    }
+
+    //user abandoned the checkout
+    void release(SeatHold hold) {
+        hold.end(HoldStatus.RELEASED);
+    }
+
+    long getExpiredCount() {
+        return expiryWheel.expiredCount.get();
+    }
+
+    void shutdown() {
+        expiryWheel.shutdown();
+    }
+}
@@ -0,0 +1,146 @@
+package LowLevelDesign.DesignBookMyShow;
+
+import LowLevelDesign.DesignBookMyShow.Enums.SeatCategory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+//immutable seat plan of a screen : category and row of every seat index, and the seats grouped in rows
+//same plan is shared by all the screens built alike (flyweight), get it from SeatLayoutFactory
+//booking state is not part of it, every Show keeps only a bitmap over these seat indexes
+public final class SeatLayout {
+
+    private static final byte NO_SEAT = -1;
+    private static final SeatCategory[] CATEGORIES = SeatCategory.values();
+
+    //index is the seat id
+    private final byte[] seatCategories;
+    private final short[] rows;
+    private final List<SeatRow> seatRows;
+    private final int hashCode;
+
+    //Seat objects handed out for bookings, made once per layout and shared as well, so they can not be changed
+    private final Seat[] seats;
+    private final List<Seat> seatList;
+
+    SeatLayout(List<Seat> seats) {
+
+        int maxSeatId = -1;
+        for (Seat seat : seats) {
+            maxSeatId = Math.max(maxSeatId, seat.getSeatId());
+        }
+
+        seatCategories = new byte[maxSeatId + 1];
+        rows = new short[maxSeatId + 1];
+        Arrays.fill(seatCategories, NO_SEAT);
+        for (Seat seat : seats) {
+            seatCategories[seat.getSeatId()] = (byte) seat.getSeatCategory().ordinal();
+            rows[seat.getSeatId()] = (short) seat.getRow();
+        }
+
+        this.seats = new Seat[maxSeatId + 1];
+        List<Seat> sortedSeats = new ArrayList<>();
+        for (int seatId = 0; seatId <= maxSeatId; seatId++) {
+            if (seatCategories[seatId] != NO_SEAT) {
+                Seat seat = new LayoutSeat(seatId, rows[seatId], CATEGORIES[seatCategories[seatId]]);
+                this.seats[seatId] = seat;
+                sortedSeats.add(seat);
+            }
+        }
+        seatList = Collections.unmodifiableList(sortedSeats);
+        seatRows = Collections.unmodifiableList(buildSeatRows(sortedSeats));
+        hashCode = 31 * Arrays.hashCode(seatCategories) + Arrays.hashCode(rows);
+    }
+
+    //seat ids of this layout are in [0, getSeatIdLimit())
+    public int getSeatIdLimit() {
+        return seatCategories.length;
+    }
+
+    public SeatCategory getSeatCategory(int seatId) {
+        return seatCategories[seatId] == NO_SEAT ? null : CATEGORIES[seatCategories[seatId]];
+    }
+
+    public int getRow(int seatId) {
+        return rows[seatId];
+    }
+
+    public Seat getSeat(int seatId) {
+        return seatId >= 0 && seatId < seats.length ? seats[seatId] : null;
+    }
+
+    public List<Seat> getSeats() {
+        return seatList;
+    }
+
+    public List<SeatRow> getSeatRows() {
+        return seatRows;
+    }
+
+    //seats with consecutive ids in the same row and category form one SeatRow
+    private static List<SeatRow> buildSeatRows(List<Seat> sortedSeats) {
+
+        List<SeatRow> seatRows = new ArrayList<>();
+        int i = 0;
+        while (i < sortedSeats.size()) {
+            Seat first = sortedSeats.get(i);
+            int j = i + 1;
+            while (j < sortedSeats.size() && j - i < SeatRow.MAX_SEATS) {
+                Seat seat = sortedSeats.get(j);
+                if (seat.getRow() != first.getRow() || seat.getSeatCategory() != first.getSeatCategory()
+                        || seat.getSeatId() != first.getSeatId() + (j - i)) {
+                    break;
+                }
+                j++;
+            }
+            seatRows.add(new SeatRow(first.getRow(), first.getSeatId(), j - i, first.getSeatCategory()));
+            i = j;
+        }
+        return seatRows;
+    }
+
+    //seat of a shared layout, a setter would change the seat of every screen built alike and disagree with the layout
+    private static final class LayoutSeat extends Seat {
+
+        LayoutSeat(int seatId, int row, SeatCategory seatCategory) {
+            this.seatId = seatId;
+            this.row = row;
+            this.seatCategory = seatCategory;
+        }
+
+        @Override
+        public void setSeatId(int seatId) {
+            throw new UnsupportedOperationException("Seat of a shared SeatLayout can not be changed");
+        }
+
+        @Override
+        public void setRow(int row) {
+            throw new UnsupportedOperationException("Seat of a shared SeatLayout can not be changed");
+        }
+
+        @Override
+        public void setSeatCategory(SeatCategory seatCategory) {
+            throw new UnsupportedOperationException("Seat of a shared SeatLayout can not be changed");
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SeatLayout)) {
+            return false;
+        }
+        SeatLayout other = (SeatLayout) o;
+        return Arrays.equals(seatCategories, other.seatCategories) && Arrays.equals(rows, other.rows);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
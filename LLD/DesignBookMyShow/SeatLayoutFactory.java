@@ -0,0 +1,44 @@
+package LowLevelDesign.DesignBookMyShow;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class SeatLayoutFactory {
+
+    //one entry per distinct seat plan, which is a handful per theatre chain, not one per screen
+    private static final ConcurrentHashMap<SeatPlan, SeatLayout> seatLayoutCache = new ConcurrentHashMap<>();
+
+    //screens with the same seat plan get the same SeatLayout object, a new SeatLayout is built only for a new plan
+    public static SeatLayout getSeatLayout(List<Seat> seats) {
+        return seatLayoutCache.computeIfAbsent(new SeatPlan(seats), seatPlan -> new SeatLayout(seats));
+    }
+
+    //key of the cache : seat id, row and category of every seat, packed in one long and sorted by seat id
+    private static final class SeatPlan {
+
+        private final long[] packedSeats;
+        private final int hashCode;
+
+        SeatPlan(List<Seat> seats) {
+            packedSeats = new long[seats.size()];
+            for (int i = 0; i < packedSeats.length; i++) {
+                Seat seat = seats.get(i);
+                packedSeats[i] = (long) seat.getSeatId() << 32 | (seat.getRow() & 0xFFFFL) << 8
+                        | seat.getSeatCategory().ordinal();
+            }
+            Arrays.sort(packedSeats);
+            hashCode = Arrays.hashCode(packedSeats);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || (o instanceof SeatPlan && Arrays.equals(packedSeats, ((SeatPlan) o).packedSeats));
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package LowLevelDesign.DesignBookMyShow;
+
+import LowLevelDesign.DesignBookMyShow.Enums.SeatCategory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+//heap used by a city scale dataset, 10k screens with 20 shows each and half of the seats booked
+//before : every screen has its own Seat objects, and every show an ArrayList of boxed booked seat ids
+//after  : all the screens share one SeatLayout, and every show has only a booked seat bitmap
+//run with a fixed heap ex: -Xms2g -Xmx2g, numbers are heap used after a full GC, so they are approximate
+public class SeatLayoutHeapReport {
+
+    private static final int NO_OF_SCREENS = 10_000;
+    private static final int SHOWS_PER_SCREEN = 20;
+    private static final int SEATS_PER_SCREEN = 200;
+    private static final int SEATS_PER_ROW = 20;
+
+    //keeps the dataset reachable while the heap is measured
+    static Object retained;
+
+    public static void main(String args[]) {
+
+        long baseline = usedHeap();
+        retained = buildBefore();
+        long before = usedHeap() - baseline;
+        retained = null;
+
+        baseline = usedHeap();
+        retained = buildAfter();
+        long after = usedHeap() - baseline;
+        retained = null;
+
+        System.out.printf("%d screens x %d shows, %d seats per screen%n", NO_OF_SCREENS, SHOWS_PER_SCREEN, SEATS_PER_SCREEN);
+        System.out.printf("before (Seat objects per screen, ArrayList<Integer> per show) : %6.1f MB%n", before / 1048576.0);
+        System.out.printf("after  (shared SeatLayout, bitmap per show)                   : %6.1f MB%n", after / 1048576.0);
+    }
+
+    private static List<Object> buildBefore() {
+
+        Random random = new Random(42);
+        List<Object> dataset = new ArrayList<>();
+        for (int s = 0; s < NO_OF_SCREENS; s++) {
+            List<Seat> seats = createSeats();
+            dataset.add(seats);
+            for (int show = 0; show < SHOWS_PER_SCREEN; show++) {
+                List<Integer> bookedSeatIds = new ArrayList<>();
+                for (int seatId = 0; seatId < SEATS_PER_SCREEN; seatId++) {
+                    if (random.nextBoolean()) {
+                        bookedSeatIds.add(seatId);
+                    }
+                }
+                dataset.add(bookedSeatIds);
+            }
+        }
+        return dataset;
+    }
+
+    private static List<Object> buildAfter() {
+
+        Random random = new Random(42);
+        List<Object> dataset = new ArrayList<>();
+        for (int s = 0; s < NO_OF_SCREENS; s++) {
+            Screen screen = new Screen();
+            screen.setScreenId(s);
+            screen.setSeats(createSeats());
+            dataset.add(screen);
+            for (int show = 0; show < SHOWS_PER_SCREEN; show++) {
+                Show newShow = new Show();
+                newShow.setScreen(screen);
+                for (int seatId = 0; seatId < SEATS_PER_SCREEN; seatId++) {
+                    if (random.nextBoolean()) {
+                        newShow.bookSeats(seatId);
+                    }
+                }
+                dataset.add(newShow);
+            }
+        }
+        return dataset;
+    }
+
+    private static List<Seat> createSeats() {
+        List<Seat> seats = new ArrayList<>();
+        for (int i = 0; i < SEATS_PER_SCREEN; i++) {
+            Seat seat = new Seat();
+            seat.setSeatId(i);
+            seat.setRow(i / SEATS_PER_ROW);
+            seat.setSeatCategory(i < SEATS_PER_SCREEN / 2 ? SeatCategory.SILVER : SeatCategory.GOLD);
+            seats.add(seat);
+        }
+        return seats;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,39 @@
+package LowLevelDesign.DesignBookMyShow;
+
+import LowLevelDesign.DesignBookMyShow.Enums.SeatCategory;
+
+//run of side by side seats of one row and one category, seat ids of the run are consecutive
+//a row longer than 64 seats is split into more runs, so a run is at most 64 bits of the free seat bitmap,
+//it can still start in one long and end in the next, BestSeatFinder.bitsOf reads both words then
+public class SeatRow {
+
+    static final int MAX_SEATS = 64;
+
+    final int row;
+    final int firstSeatId;
+    final int noOfSeats;
+    final SeatCategory seatCategory;
+
+    SeatRow(int row, int firstSeatId, int noOfSeats, SeatCategory seatCategory) {
+        this.row = row;
+        this.firstSeatId = firstSeatId;
+        this.noOfSeats = noOfSeats;
+        this.seatCategory = seatCategory;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getFirstSeatId() {
+        return firstSeatId;
+    }
+
+    public int getNoOfSeats() {
+        return noOfSeats;
+    }
+
+    public SeatCategory getSeatCategory() {
+        return seatCategory;
+    }
+}
@@ -0,0 +1,171 @@
+package LowLevelDesign.DesignBookMyShow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.LockSupport;
+
+//shows are partitioned across N shard threads, every showId is owned by exactly one shard
+//callers never touch the seats themselves, they put a command into the owner shard's bounded queue
+//and get a CompletableFuture back, the shard thread runs the commands of its shows one after another
+//so a blockbuster show keeps one shard busy instead of blocking the whole system on a global lock
+//
+//a full queue rejects the command right away (future completes with RejectedExecutionException)
+//instead of letting callers pile up behind a hot show
+//futures are completed on the shard thread, so callers should not run slow callbacks on them
+public class ShardedBookingEngine {
+
+    private static final int SPINS_BEFORE_PARK = 200;
+
+    static final class BookingCommand {
+
+        final Show show;
+        final int[] seatIds;
+        //set for a cancel command
+        final Booking booking;
+        final CompletableFuture<Booking> result = new CompletableFuture<>();
+
+        BookingCommand(Show show, int[] seatIds, Booking booking) {
+            this.show = show;
+            this.seatIds = seatIds;
+            this.booking = booking;
+        }
+    }
+
+    static final class Shard implements Runnable {
+
+        final MpscBoundedQueue<BookingCommand> commands;
+        final Thread thread;
+        volatile boolean running = true;
+        volatile boolean parked;
+
+        Shard(int shardId, int queueCapacity) {
+            commands = new MpscBoundedQueue<>(queueCapacity);
+            thread = new Thread(this, "booking-shard-" + shardId);
+            thread.setDaemon(true);
+        }
+
+        boolean submit(BookingCommand command) {
+            if (!running || !commands.offer(command)) {
+                return false;
+            }
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            int idleSpins = 0;
+            while (true) {
+                BookingCommand command = commands.poll();
+                if (command != null) {
+                    execute(command);
+                    idleSpins = 0;
+                    continue;
+                }
+                if (!running) {
+                    return;
+                }
+                if (++idleSpins < SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                //publish parked before the last check, a producer offering after that check will unpark us
+                parked = true;
+                if (commands.isEmpty() && running) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+                idleSpins = 0;
+            }
+        }
+
+        private void execute(BookingCommand command) {
+            try {
+                if (command.booking != null) {
+                    //a booking cancelled twice frees its seats once, they may be booked by someone else by now
+                    if (command.booking.cancel()) {
+                        command.show.releaseSeats(command.seatIds);
+                    }
+                    command.result.complete(command.booking);
+                } else if (command.show.bookSeats(command.seatIds)) {
+                    command.result.complete(createBooking(command.show, command.seatIds));
+                } else {
+                    //some seat is already booked, same as SeatHoldController.holdSeats returning null
+                    command.result.complete(null);
+                }
+            } catch (RuntimeException e) {
+                command.result.completeExceptionally(e);
+            }
+        }
+
+        private Booking createBooking(Show show, int[] seatIds) {
+            Booking booking = new Booking();
+            List<Seat> bookedSeats = new ArrayList<>();
+            for (int seatId : seatIds) {
+                bookedSeats.add(show.getScreen().getSeat(seatId));
+            }
+            booking.setBookedSeats(bookedSeats);
+            booking.setShow(show);
+            return booking;
+        }
+    }
+
+
+    final Shard[] shards;
+
+    public ShardedBookingEngine(int noOfShards, int queueCapacity) {
+        if (noOfShards <= 0) {
+            throw new IllegalArgumentException("Illegal no of shards: " + noOfShards);
+        }
+        shards = new Shard[noOfShards];
+        for (int i = 0; i < noOfShards; i++) {
+            shards[i] = new Shard(i, queueCapacity);
+            shards[i].thread.start();
+        }
+    }
+
+    //completes with the booking, or with null if any of the seats is already booked
+    public CompletableFuture<Booking> book(Show show, int... seatIds) {
+        return submit(new BookingCommand(show, seatIds.clone(), null));
+    }
+
+    //completes with the cancelled booking once its seats are free again, cancelling it again changes nothing
+    public CompletableFuture<Booking> cancel(Booking booking) {
+        List<Seat> bookedSeats = booking.getBookedSeats();
+        int[] seatIds = new int[bookedSeats.size()];
+        for (int i = 0; i < seatIds.length; i++) {
+            seatIds[i] = bookedSeats.get(i).getSeatId();
+        }
+        return submit(new BookingCommand(booking.getShow(), seatIds, booking));
+    }
+
+    //call once the callers have stopped submitting, commands already queued are still executed
+    public void shutdown() throws InterruptedException {
+        for (Shard shard : shards) {
+            shard.running = false;
+            LockSupport.unpark(shard.thread);
+        }
+        for (Shard shard : shards) {
+            shard.thread.join();
+        }
+    }
+
+    private CompletableFuture<Booking> submit(BookingCommand command) {
+        Shard shard = shards[shardFor(command.show.getShowId())];
+        if (!shard.submit(command)) {
+            command.result.completeExceptionally(
+                    new RejectedExecutionException("Booking queue full for show " + command.show.getShowId()));
+        }
+        return command.result;
+    }
+
+    //show ids are usually sequential, mix them so neighbouring shows spread over the shards
+    private int shardFor(int showId) {
+        int h = showId * 0x9E3779B9;
+        return Math.floorMod(h ^ (h >>> 16), shards.length);
+    }
+}
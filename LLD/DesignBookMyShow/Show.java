@@ -1,15 +1,32 @@
 package LowLevelDesign.DesignBookMyShow;
 
+import LowLevelDesign.DesignBookMyShow.Enums.SeatCategory;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 public class Show {
 
     int showId;
     Movie movie;
     Screen screen;
+    Theatre theatre;
     int showStartTime;
-    List<Integer> bookedSeatIds = new ArrayList<>();
+    //minutes since midnight, showStartTime is this in hours
+    int showStartMinute;
+
+    //bit i is set when seat i is booked, one long holds 64 seats
+    //this bitmap is the only per show seat state, the seat plan itself is the screen's shared SeatLayout
+    //seats are claimed with compareAndSet on the words, so two users can never get the same seat
+    AtomicLongArray bookedSeats = new AtomicLongArray(0);
+    int seatIdLimit;
+
+    //free seats per SeatCategory ordinal, for the listing pages
+    //changed after the bitmap by booking and cancellation, so a reader may briefly see a seat more than is free
+    AtomicIntegerArray freeSeatsPerCategory = new AtomicIntegerArray(SeatCategory.values().length);
 
     public int getShowId() {
         return showId;
@@ -33,6 +50,25 @@ public class Show {
 
     public void setScreen(Screen screen) {
         this.screen = screen;
+        seatIdLimit = screen.getSeatLayout().getSeatIdLimit();
+        bookedSeats = new AtomicLongArray((seatIdLimit + 63) >>> 6);
+        freeSeatsPerCategory = new AtomicIntegerArray(SeatCategory.values().length);
+        for (Seat seat : screen.getSeats()) {
+            freeSeatsPerCategory.incrementAndGet(seat.getSeatCategory().ordinal());
+        }
+    }
+
+    //no locking and no seat level data, ex: "12 GOLD seats left"
+    public int getFreeSeats(SeatCategory seatCategory) {
+        return freeSeatsPerCategory.get(seatCategory.ordinal());
+    }
+
+    public Theatre getTheatre() {
+        return theatre;
+    }
+
+    public void setTheatre(Theatre theatre) {
+        this.theatre = theatre;
     }
 
     public int getShowStartTime() {
@@ -41,13 +77,130 @@ public class Show {
 
     public void setShowStartTime(int showStartTime) {
         this.showStartTime = showStartTime;
+        this.showStartMinute = showStartTime * 60;
+    }
+
+    public int getShowStartMinute() {
+        return showStartMinute;
+    }
+
+    //ex: 18 * 60 + 30 for 6:30 PM
+    public void setShowStartMinute(int showStartMinute) {
+        this.showStartMinute = showStartMinute;
+        this.showStartTime = showStartMinute / 60;
+    }
+
+    //show ends when the movie ends, a show running past midnight ends after minute 1440
+    public int getShowEndMinute() {
+        return showStartMinute + movie.getMovieDuration();
     }
 
+    //book all the given seats or none of them
+    //words are claimed in ascending order, if any seat is already taken the words claimed so far are released again
+    public boolean bookSeats(int... seatIds) {
+
+        int[] sortedSeatIds = seatIds.clone();
+        Arrays.sort(sortedSeatIds);
+        checkSeatIds(sortedSeatIds);
+
+        int from = 0;
+        while (from < sortedSeatIds.length) {
+            int word = sortedSeatIds[from] >>> 6;
+            long mask = 0;
+            int to = from;
+            while (to < sortedSeatIds.length && (sortedSeatIds[to] >>> 6) == word) {
+                mask |= 1L << (sortedSeatIds[to] & 63);
+                to++;
+            }
+            if (!claim(word, mask)) {
+                release(sortedSeatIds, from);
+                return false;
+            }
+            from = to;
+        }
+        for (int i = 0; i < sortedSeatIds.length; i++) {
+            if (i == 0 || sortedSeatIds[i] != sortedSeatIds[i - 1]) {
+                addFreeSeats(sortedSeatIds[i], -1);
+            }
+        }
+        return true;
+    }
+
+    //cancel the booking of the given seats
+    public void releaseSeats(int... seatIds) {
+        int[] sortedSeatIds = seatIds.clone();
+        Arrays.sort(sortedSeatIds);
+        checkSeatIds(sortedSeatIds);
+        for (int seatId : sortedSeatIds) {
+            long mask = 1L << (seatId & 63);
+            long previous = bookedSeats.getAndAccumulate(seatId >>> 6, mask, (current, bit) -> current & ~bit);
+            //count only the seats which were booked, releasing a free seat changes nothing
+            if ((previous & mask) != 0) {
+                addFreeSeats(seatId, 1);
+            }
+        }
+    }
+
+    public boolean isSeatBooked(int seatId) {
+        return (bookedSeats.get(seatId >>> 6) & (1L << (seatId & 63))) != 0;
+    }
+
+    //snapshot of the booked seats
     public List<Integer> getBookedSeatIds() {
+        List<Integer> bookedSeatIds = new ArrayList<>();
+        for (int word = 0; word < bookedSeats.length(); word++) {
+            long bits = bookedSeats.get(word);
+            while (bits != 0) {
+                bookedSeatIds.add((word << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
         return bookedSeatIds;
     }
 
-    public void setBookedSeatIds(List<Integer> bookedSeatIds) {
-        this.bookedSeatIds = bookedSeatIds;
+    //recovery only : booked seats read back from the BookingJournal, before the show takes bookings
+    void restoreBookedSeats(long[] words) {
+        for (int word = 0; word < Math.min(words.length, bookedSeats.length()); word++) {
+            bookedSeats.set(word, words[word]);
+        }
+        for (int seatId : getBookedSeatIds()) {
+            addFreeSeats(seatId, -1);
+        }
+    }
+
+    private boolean claim(int word, long mask) {
+        while (true) {
+            long current = bookedSeats.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (bookedSeats.compareAndSet(word, current, current | mask)) {
+                return true;
+            }
+        }
+    }
+
+    private void addFreeSeats(int seatId, int delta) {
+        SeatCategory seatCategory = screen.getSeatLayout().getSeatCategory(seatId);
+        if (seatCategory != null) {
+            freeSeatsPerCategory.addAndGet(seatCategory.ordinal(), delta);
+        }
+    }
+
+    //rollback of a failed booking : clear the bits of sortedSeatIds[0, to)
+    private void release(int[] sortedSeatIds, int to) {
+        for (int i = 0; i < to; i++) {
+            long mask = 1L << (sortedSeatIds[i] & 63);
+            bookedSeats.getAndAccumulate(sortedSeatIds[i] >>> 6, mask, (current, bit) -> current & ~bit);
+        }
+    }
+
+    private void checkSeatIds(int[] sortedSeatIds) {
+        if (sortedSeatIds.length == 0) {
+            throw new IllegalArgumentException("No seat selected");
+        }
+        if (sortedSeatIds[0] < 0 || sortedSeatIds[sortedSeatIds.length - 1] >= seatIdLimit) {
+            throw new IllegalArgumentException("Invalid seat id for show " + showId);
+        }
     }
 }
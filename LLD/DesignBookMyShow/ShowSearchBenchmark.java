@@ -0,0 +1,112 @@
+package LowLevelDesign.DesignBookMyShow;
+
+import LowLevelDesign.DesignBookMyShow.Enums.City;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+//show search of a metro city: indexed TheatreController.getAllShow vs the earlier scan of every show of every theatre
+//and MovieController.getMovieByName vs a linear scan of all the movies
+public class ShowSearchBenchmark {
+
+    private static final int NO_OF_THEATRES = 3000;
+    private static final int SHOWS_PER_THEATRE = 25;
+    private static final int NO_OF_MOVIES = 200;
+    private static final int NO_OF_SEARCHES = 20000;
+
+    static long blackhole;
+
+    public static void main(String args[]) {
+
+        MovieController movieController = new MovieController();
+        TheatreController theatreController = new TheatreController();
+        Random random = new Random(42);
+
+        List<Movie> movies = new ArrayList<>();
+        for (int i = 0; i < NO_OF_MOVIES; i++) {
+            Movie movie = new Movie();
+            movie.setMovieId(i);
+            movie.setMovieName("MOVIE-" + i);
+            movie.setMovieDuration(150);
+            movies.add(movie);
+            movieController.addMovie(movie, City.Bangalore);
+        }
+
+        int showId = 0;
+        for (int t = 0; t < NO_OF_THEATRES; t++) {
+            Theatre theatre = new Theatre();
+            theatre.setTheatreId(t);
+            theatre.setCity(City.Bangalore);
+            List<Show> shows = new ArrayList<>();
+            for (int s = 0; s < SHOWS_PER_THEATRE; s++) {
+                Show show = new Show();
+                show.setShowId(showId++);
+                show.setMovie(movies.get(random.nextInt(NO_OF_MOVIES)));
+                show.setShowStartTime(8 + random.nextInt(16));
+                shows.add(show);
+            }
+            theatre.setShows(shows);
+            theatreController.addTheatre(theatre, City.Bangalore);
+        }
+
+        String[] movieNames = new String[NO_OF_SEARCHES];
+        for (int i = 0; i < NO_OF_SEARCHES; i++) {
+            movieNames[i] = "MOVIE-" + random.nextInt(NO_OF_MOVIES);
+        }
+
+        //first rounds warm up the JIT
+        for (int round = 0; round < 3; round++) {
+            long scanNanos = searchWithScan(movieController, theatreController, movieNames);
+            long indexNanos = searchWithIndex(movieController, theatreController, movieNames);
+            System.out.printf("round %d  scan : %8.1f us/search   index : %8.1f us/search%n",
+                    round, scanNanos / 1000.0 / NO_OF_SEARCHES, indexNanos / 1000.0 / NO_OF_SEARCHES);
+        }
+    }
+
+    private static long searchWithIndex(MovieController movieController, TheatreController theatreController,
+                                        String[] movieNames) {
+        long start = System.nanoTime();
+        for (String movieName : movieNames) {
+            Movie movie = movieController.getMovieByName(movieName);
+            blackhole += theatreController.getAllShow(movie, City.Bangalore).size();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long searchWithScan(MovieController movieController, TheatreController theatreController,
+                                       String[] movieNames) {
+        long start = System.nanoTime();
+        for (String movieName : movieNames) {
+            Movie movie = null;
+            for (Movie candidate : movieController.allMovies) {
+                if (candidate.getMovieName().equals(movieName)) {
+                    movie = candidate;
+                    break;
+                }
+            }
+            blackhole += scanAllShow(theatreController, movie, City.Bangalore).size();
+        }
+        return System.nanoTime() - start;
+    }
+
+    //earlier TheatreController.getAllShow, kept here as the baseline
+    private static Map<Theatre, List<Show>> scanAllShow(TheatreController theatreController, Movie movie, City city) {
+
+        Map<Theatre, List<Show>> theatreVsShows = new HashMap<>();
+        for (Theatre theatre : theatreController.cityVsTheatre.get(city)) {
+            List<Show> givenMovieShows = new ArrayList<>();
+            for (Show show : theatre.getShows()) {
+                if (show.movie.getMovieId() == movie.getMovieId()) {
+                    givenMovieShows.add(show);
+                }
+            }
+            if (!givenMovieShows.isEmpty()) {
+                theatreVsShows.put(theatre, givenMovieShows);
+            }
+        }
+        return theatreVsShows;
+    }
+}
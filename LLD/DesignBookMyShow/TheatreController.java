@@ -3,55 +3,135 @@ package LowLevelDesign.DesignBookMyShow;
 import LowLevelDesign.DesignBookMyShow.Enums.City;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 public class TheatreController {
 
+    private static final Comparator<Show> BY_START_TIME = Comparator.comparingInt(Show::getShowStartMinute);
+
     Map<City, List<Theatre>> cityVsTheatre;
     List<Theatre> allTheatre;
 
+    //city -> movieId -> shows of that movie in the city, sorted by start time
+    //kept up to date by addTheatre and addShow, so search does not scan every theatre of the city
+    Map<City, Map<Integer, List<Show>>> cityVsMovieIdVsShows;
+
     TheatreController() {
         cityVsTheatre = new HashMap<>();
         allTheatre = new ArrayList<>();
+        cityVsMovieIdVsShows = new HashMap<>();
     }
 
+    //all the shows are put on their screens first, if one overlaps the ones already put are taken off again
+    //and the theatre is not added at all
     void addTheatre(Theatre theatre, City city) {
 
+        List<Show> scheduledShows = new ArrayList<>();
+        for (Show show : theatre.getShows()) {
+            if (!scheduleOnScreen(show)) {
+                for (Show scheduledShow : scheduledShows) {
+                    scheduledShow.getScreen().getSchedule().remove(scheduledShow);
+                }
+                throw new IllegalArgumentException("Show " + show.getShowId() + " overlaps another show on its screen");
+            }
+            if (show.getScreen() != null) {
+                scheduledShows.add(show);
+            }
+        }
+
         allTheatre.add(theatre);
 
         List<Theatre> theatres = cityVsTheatre.getOrDefault(city, new ArrayList<>());
         theatres.add(theatre);
         cityVsTheatre.put(city, theatres);
+
+        for (Show show : theatre.getShows()) {
+            indexShow(theatre, city, show);
+        }
     }
 
+    //add a new show to a theatre which is already added
+    //false if the screen already has a show in that time, then nothing is added
+    boolean addShow(Theatre theatre, Show show) {
+        if (!scheduleOnScreen(show)) {
+            return false;
+        }
+        theatre.getShows().add(show);
+        indexShow(theatre, theatre.getCity(), show);
+        return true;
+    }
 
-    Map<Theatre, List<Show>> getAllShow(Movie movie, City city) {
+    //shows without a screen are only searchable, they can not conflict with anything
+    private boolean scheduleOnScreen(Show show) {
+        return show.getScreen() == null || show.getScreen().getSchedule().add(show);
+    }
+
+    private void indexShow(Theatre theatre, City city, Show show) {
 
-        //get all the theater of this city
+        show.setTheatre(theatre);
 
-        Map<Theatre, List<Show>> theatreVsShows = new HashMap<>();
+        List<Show> shows = cityVsMovieIdVsShows
+                .computeIfAbsent(city, c -> new HashMap<>())
+                .computeIfAbsent(show.getMovie().getMovieId(), movieId -> new ArrayList<>());
 
-        List<Theatre> theatres = cityVsTheatre.get(city);
+        //insert after the shows with same start time, so the order is stable
+        int position = Collections.binarySearch(shows, show, BY_START_TIME);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        while (position < shows.size() && shows.get(position).getShowStartMinute() == show.getShowStartMinute()) {
+            position++;
+        }
+        shows.add(position, show);
+    }
 
-        //filter the theatres which run this movie
 
-        for(Theatre theatre : theatres) {
+    //all the shows of the movie in the city, sorted by start time
+    List<Show> getShows(Movie movie, City city) {
 
-            List<Show> givenMovieShows = new ArrayList<>();
-            List<Show> shows = theatre.getShows();
+        Map<Integer, List<Show>> movieIdVsShows = cityVsMovieIdVsShows.get(city);
+        if (movieIdVsShows == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(movieIdVsShows.getOrDefault(movie.getMovieId(), Collections.emptyList()));
+    }
 
-            for(Show show : shows) {
-                if(show.movie.getMovieId() == movie.getMovieId()) {
-                    givenMovieShows.add(show);
-                }
-            }
-            if(!givenMovieShows.isEmpty()) {
-                theatreVsShows.put(theatre, givenMovieShows);
+    //shows of the movie in the city starting in [fromMinute, toMinute), sorted by start time
+    //ex: 18 * 60 to 22 * 60 for the shows starting from 6 PM till before 10 PM
+    List<Show> getShows(Movie movie, City city, int fromMinute, int toMinute) {
+
+        List<Show> shows = getShows(movie, city);
+        int from = firstStartingAtOrAfter(shows, fromMinute);
+        int to = firstStartingAtOrAfter(shows, toMinute);
+        return from < to ? new ArrayList<>(shows.subList(from, to)) : new ArrayList<>();
+    }
+
+    private int firstStartingAtOrAfter(List<Show> shows, int minute) {
+        int low = 0;
+        int high = shows.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (shows.get(mid).getShowStartMinute() < minute) {
+                low = mid + 1;
+            } else {
+                high = mid;
             }
         }
+        return low;
+    }
 
+    Map<Theatre, List<Show>> getAllShow(Movie movie, City city) {
+
+        //group the indexed shows theatre wise, shows of every theatre stay sorted by start time
+        Map<Theatre, List<Show>> theatreVsShows = new LinkedHashMap<>();
+        for (Show show : getShows(movie, city)) {
+            theatreVsShows.computeIfAbsent(show.getTheatre(), theatre -> new ArrayList<>()).add(show);
+        }
         return theatreVsShows;
     }
 }
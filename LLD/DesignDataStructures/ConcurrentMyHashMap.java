@@ -0,0 +1,327 @@
+package LowLevelDesign.DesignDataStructures;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//thread safe version of MyHashMap
+//get never locks: buckets are read through AtomicReferenceArray (volatile read) and next/value are volatile
+//put CASes the first node into an empty bucket, else locks only the head node of that bucket
+//resize is cooperative: every thread that touches a table being resized claims a range of buckets and moves them,
+//a moved bucket is replaced by a ForwardingNode which points readers and writers to the new table
+public class ConcurrentMyHashMap<K,V> {
+
+    private static final int INITIAL_SIZE = 1 << 4; //16
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    //no of buckets a thread claims at once while helping a resize
+    private static final int TRANSFER_STRIDE = 16;
+
+    volatile Table<K,V> table;
+    final LongAdder size = new LongAdder();
+
+
+    ConcurrentMyHashMap() {
+        this(INITIAL_SIZE);
+    }
+
+    ConcurrentMyHashMap(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + capacity);
+        }
+        table = new Table<>(tableSizeFor(capacity));
+    }
+
+    static final int tableSizeFor(int cap) {
+        int n = cap - 1;
+        n |= n >>> 1;
+        n |= n >>> 2;
+        n |= n >>> 4;
+        n |= n >>> 8;
+        n |= n >>> 16;
+        return (n < 0) ? 1 : (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
+    }
+
+    //same spreading as MyHashMap, sign bit is cleared so it never clashes with MOVED
+    static final int hash(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & 0x7fffffff;
+    }
+
+    private static int indexFor(int hash, int length) {
+        return hash & (length - 1);
+    }
+
+
+    static class Node<K,V> {
+
+        final int hash;
+        final K key;
+        volatile V value;
+        volatile Node<K,V> next;
+
+        Node(int h, K k, V v, Node<K,V> n) {
+            hash = h;
+            key = k;
+            value = v;
+            next = n;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public V getValue() {
+            return value;
+        }
+    }
+
+    static final int MOVED = -1;
+
+    //placed in a bucket of the old table once that bucket is moved to the new table
+    static final class ForwardingNode<K,V> extends Node<K,V> {
+
+        final Table<K,V> nextTable;
+
+        ForwardingNode(Table<K,V> nextTable) {
+            super(MOVED, null, null, null);
+            this.nextTable = nextTable;
+        }
+    }
+
+    static final class Table<K,V> {
+
+        final AtomicReferenceArray<Node<K,V>> buckets;
+        final int threshold;
+        //set once when this table starts growing, and never cleared, so a table is resized only once
+        final AtomicReference<Transfer<K,V>> transfer = new AtomicReference<>();
+
+        Table(int length) {
+            buckets = new AtomicReferenceArray<>(length);
+            threshold = length >= MAXIMUM_CAPACITY ? Integer.MAX_VALUE : length - (length >>> 2);
+        }
+
+        int length() {
+            return buckets.length();
+        }
+    }
+
+    //state of one resize, shared by all the helping threads
+    static final class Transfer<K,V> {
+
+        final Table<K,V> nextTable;
+        final ForwardingNode<K,V> forwardingNode;
+        //buckets below this index are not yet claimed by any thread
+        final AtomicInteger transferIndex;
+        final AtomicInteger bucketsDone = new AtomicInteger();
+
+        Transfer(Table<K,V> oldTable) {
+            nextTable = new Table<>(oldTable.length() << 1);
+            forwardingNode = new ForwardingNode<>(nextTable);
+            transferIndex = new AtomicInteger(oldTable.length());
+        }
+    }
+
+
+    public V put(K key, V value) {
+
+        if (key == null || value == null) {
+            throw new NullPointerException();
+        }
+
+        int hash = hash(key);
+        Table<K,V> tab = table;
+
+        while (true) {
+
+            int index = indexFor(hash, tab.length());
+            Node<K,V> first = tab.buckets.get(index);
+
+            if (first == null) {
+                if (tab.buckets.compareAndSet(index, null, new Node<>(hash, key, value, null))) {
+                    break;
+                }
+            } else if (first.hash == MOVED) {
+                tab = helpTransfer(tab, ((ForwardingNode<K,V>) first).nextTable);
+            } else {
+                boolean added = false;
+                V oldValue = null;
+                synchronized (first) {
+                    //bucket head can be replaced by a ForwardingNode before we got the lock
+                    if (tab.buckets.get(index) == first) {
+                        Node<K,V> node = first;
+                        while (true) {
+                            if (node.hash == hash && (node.key == key || key.equals(node.key))) {
+                                oldValue = node.value;
+                                node.value = value;
+                                break;
+                            }
+                            if (node.next == null) {
+                                node.next = new Node<>(hash, key, value, null);
+                                added = true;
+                                break;
+                            }
+                            node = node.next;
+                        }
+                    }
+                }
+                if (oldValue != null) {
+                    return oldValue;
+                }
+                if (added) {
+                    break;
+                }
+            }
+        }
+
+        size.increment();
+        Table<K,V> current = table;
+        if (size.sum() > current.threshold) {
+            startOrHelpResize(current);
+        }
+        return null;
+    }
+
+
+    public V get(Object key) {
+
+        int hash = hash(key);
+        Table<K,V> tab = table;
+
+        while (true) {
+            Node<K,V> node = tab.buckets.get(indexFor(hash, tab.length()));
+            if (node == null) {
+                return null;
+            }
+            if (node.hash == MOVED) {
+                tab = ((ForwardingNode<K,V>) node).nextTable;
+                continue;
+            }
+            while (node != null) {
+                if (node.hash == hash && (node.key == key || key.equals(node.key))) {
+                    return node.value;
+                }
+                node = node.next;
+            }
+            return null;
+        }
+    }
+
+    public int size() {
+        long n = size.sum();
+        return n > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) n;
+    }
+
+    private void startOrHelpResize(Table<K,V> tab) {
+
+        if (tab.length() >= MAXIMUM_CAPACITY) {
+            return;
+        }
+        Transfer<K,V> transfer = tab.transfer.get();
+        if (transfer == null) {
+            Transfer<K,V> newTransfer = new Transfer<>(tab);
+            transfer = tab.transfer.compareAndSet(null, newTransfer) ? newTransfer : tab.transfer.get();
+        }
+        transfer(tab, transfer);
+    }
+
+    //writer found a moved bucket, help finishing the resize and continue on the next table
+    private Table<K,V> helpTransfer(Table<K,V> tab, Table<K,V> nextTable) {
+        Transfer<K,V> transfer = tab.transfer.get();
+        if (transfer != null) {
+            transfer(tab, transfer);
+        }
+        return nextTable;
+    }
+
+    private void transfer(Table<K,V> tab, Transfer<K,V> transfer) {
+
+        int n = tab.length();
+        while (true) {
+            int high = transfer.transferIndex.get();
+            if (high <= 0) {
+                return;
+            }
+            int low = Math.max(0, high - TRANSFER_STRIDE);
+            if (!transfer.transferIndex.compareAndSet(high, low)) {
+                continue;
+            }
+
+            for (int index = high - 1; index >= low; index--) {
+                moveBucket(tab, transfer, index);
+            }
+
+            //only one thread sees the last bucket done, that thread publishes the new table
+            if (transfer.bucketsDone.addAndGet(high - low) == n) {
+                table = transfer.nextTable;
+                return;
+            }
+        }
+    }
+
+    //bucket i of the old table splits into bucket i and i + n of the new table
+    //nodes are copied, so readers still walking the old chain are not disturbed
+    private void moveBucket(Table<K,V> tab, Transfer<K,V> transfer, int index) {
+
+        int n = tab.length();
+        while (true) {
+            Node<K,V> first = tab.buckets.get(index);
+            if (first == null) {
+                if (tab.buckets.compareAndSet(index, null, transfer.forwardingNode)) {
+                    return;
+                }
+                continue;
+            }
+            synchronized (first) {
+                if (tab.buckets.get(index) != first) {
+                    continue;
+                }
+                Node<K,V> lowHead = null;
+                Node<K,V> highHead = null;
+                for (Node<K,V> node = first; node != null; node = node.next) {
+                    if ((node.hash & n) == 0) {
+                        lowHead = new Node<>(node.hash, node.key, node.value, lowHead);
+                    } else {
+                        highHead = new Node<>(node.hash, node.key, node.value, highHead);
+                    }
+                }
+                transfer.nextTable.buckets.set(index, lowHead);
+                transfer.nextTable.buckets.set(index + n, highHead);
+                tab.buckets.set(index, transfer.forwardingNode);
+                return;
+            }
+        }
+    }
+
+    public static void main(String args[]) throws InterruptedException {
+
+        ConcurrentMyHashMap<Integer, Integer> map = new ConcurrentMyHashMap<>();
+
+        //8 threads insert 100000 keys each, all of them start from a 16 bucket table
+        int noOfThreads = 8;
+        int keysPerThread = 100000;
+        Thread[] threads = new Thread[noOfThreads];
+        for (int t = 0; t < noOfThreads; t++) {
+            int offset = t * keysPerThread;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < keysPerThread; i++) {
+                    map.put(offset + i, offset + i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int missing = 0;
+        for (int i = 0; i < noOfThreads * keysPerThread; i++) {
+            Integer value = map.get(i);
+            if (value == null || value != i) {
+                missing++;
+            }
+        }
+        System.out.println(map.size() + " entries, table size " + map.table.length() + ", missing : " + missing);
+    }
+}
@@ -0,0 +1,97 @@
+package LowLevelDesign.DesignDataStructures;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+//throughput of ConcurrentMyHashMap vs java.util.concurrent.ConcurrentHashMap from 1 to 32 threads
+//every thread runs 90% get and 10% put on random keys, for a fixed duration
+public class ConcurrentMyHashMapBenchmark {
+
+    private static final int NO_OF_KEYS = 1 << 20;
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32};
+    private static final long WARMUP_MILLIS = 1000;
+    private static final long MEASURE_MILLIS = 2000;
+
+    static volatile long blackhole;
+
+    public static void main(String args[]) throws InterruptedException {
+
+        Integer[] keys = new Integer[NO_OF_KEYS];
+        for (int i = 0; i < NO_OF_KEYS; i++) {
+            keys[i] = i;
+        }
+
+        for (int threads : THREAD_COUNTS) {
+
+            ConcurrentMyHashMap<Integer, Integer> myMap = new ConcurrentMyHashMap<>();
+            ConcurrentHashMap<Integer, Integer> jdkMap = new ConcurrentHashMap<>();
+
+            double myMops = run(threads, keys, myMap::get, myMap::put);
+            double jdkMops = run(threads, keys, jdkMap::get, jdkMap::put);
+
+            System.out.printf("%2d threads  ConcurrentMyHashMap : %7.1f Mops/s   ConcurrentHashMap : %7.1f Mops/s%n",
+                    threads, myMops, jdkMops);
+        }
+    }
+
+    private static double run(int noOfThreads, Integer[] keys, Function<Integer, Integer> get,
+                              BiConsumer<Integer, Integer> put) throws InterruptedException {
+
+        LongAdder ops = new LongAdder();
+        CountDownLatch startLatch = new CountDownLatch(1);
+        Thread[] threads = new Thread[noOfThreads];
+        long[] window = new long[2];
+
+        for (int t = 0; t < noOfThreads; t++) {
+            threads[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long localOps = 0;
+                long sum = 0;
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                boolean measuring = false;
+                while (true) {
+                    long now = System.nanoTime();
+                    if (!measuring && now >= window[0]) {
+                        measuring = true;
+                        localOps = 0;
+                    }
+                    if (now >= window[1]) {
+                        break;
+                    }
+                    for (int i = 0; i < 1000; i++) {
+                        Integer key = keys[random.nextInt(keys.length)];
+                        if (random.nextInt(10) == 0) {
+                            put.accept(key, key);
+                        } else {
+                            Integer value = get.apply(key);
+                            if (value != null) {
+                                sum += value;
+                            }
+                        }
+                    }
+                    localOps += 1000;
+                }
+                ops.add(localOps);
+                blackhole += sum;
+            });
+            threads[t].start();
+        }
+
+        long start = System.nanoTime();
+        window[0] = start + WARMUP_MILLIS * 1_000_000;
+        window[1] = window[0] + MEASURE_MILLIS * 1_000_000;
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return ops.sum() / (MEASURE_MILLIS * 1000.0);
+    }
+}
@@ -0,0 +1,94 @@
+package LowLevelDesign.DesignDataStructures;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Random;
+
+//throughput and allocated bytes of IntIntOpenHashMap vs MyHashMap vs java.util.HashMap for int -> int data
+//allocation is read from com.sun.management.ThreadMXBean, so it needs a HotSpot based JVM
+public class IntIntMapBenchmark {
+
+    private static final int NO_OF_KEYS = 1 << 20;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    //keeps JIT from removing the lookups
+    static long blackhole;
+
+    interface Round {
+        void run(int[] keys);
+    }
+
+    public static void main(String args[]) {
+
+        int[] keys = new int[NO_OF_KEYS];
+        Random random = new Random(42);
+        for (int i = 0; i < NO_OF_KEYS; i++) {
+            keys[i] = random.nextInt(NO_OF_KEYS * 4);
+        }
+
+        measure("IntIntOpenHashMap", keys, IntIntMapBenchmark::intIntOpenHashMapRound);
+        measure("MyHashMap", keys, IntIntMapBenchmark::myHashMapRound);
+        measure("HashMap", keys, IntIntMapBenchmark::hashMapRound);
+    }
+
+    private static void measure(String name, int[] keys, Round round) {
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            round.run(keys);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            round.run(keys);
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+        //every round does one put and one get per key
+        long ops = 2L * keys.length * MEASURED_ROUNDS;
+        System.out.printf("%-18s : %6.1f ns/op  %8.1f Mops/s  %6.1f bytes/op%n",
+                name, (double) nanos / ops, ops * 1000.0 / nanos, (double) bytes / ops);
+    }
+
+    private static void intIntOpenHashMapRound(int[] keys) {
+        IntIntOpenHashMap map = new IntIntOpenHashMap();
+        for (int key : keys) {
+            map.put(key, key);
+        }
+        long sum = 0;
+        for (int key : keys) {
+            sum += map.getOrDefault(key, 0);
+        }
+        blackhole += sum;
+    }
+
+    private static void myHashMapRound(int[] keys) {
+        MyHashMap<Integer, Integer> map = new MyHashMap<>();
+        for (int key : keys) {
+            map.put(key, key);
+        }
+        long sum = 0;
+        for (int key : keys) {
+            sum += map.get(key);
+        }
+        blackhole += sum;
+    }
+
+    private static void hashMapRound(int[] keys) {
+        HashMap<Integer, Integer> map = new HashMap<>();
+        for (int key : keys) {
+            map.put(key, key);
+        }
+        long sum = 0;
+        for (int key : keys) {
+            sum += map.get(key);
+        }
+        blackhole += sum;
+    }
+}
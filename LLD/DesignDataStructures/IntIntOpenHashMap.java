@@ -0,0 +1,257 @@
+package LowLevelDesign.DesignDataStructures;
+
+import java.util.Arrays;
+
+//int -> int map with open addressing and linear probing
+//keys and values are stored in two primitive arrays, so there is no Entry object and no boxing
+//key 0 marks a free slot in the keys array, so the key 0 itself is kept outside the arrays
+public class IntIntOpenHashMap {
+
+    private static final int INITIAL_SIZE = 1 << 4; //16
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    int[] keys;
+    int[] values;
+    int mask;
+
+    boolean hasZeroKey;
+    int zeroKeyValue;
+
+    int size;
+    int threshold;
+    final float loadFactor;
+
+
+    public IntIntOpenHashMap() {
+        this(INITIAL_SIZE, DEFAULT_LOAD_FACTOR);
+    }
+
+    public IntIntOpenHashMap(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    public IntIntOpenHashMap(int capacity, float loadFactor) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + capacity);
+        }
+        if (loadFactor <= 0 || loadFactor >= 1 || Float.isNaN(loadFactor)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(tableSizeFor((int) Math.ceil(capacity / loadFactor)));
+    }
+
+    private static int tableSizeFor(int cap) {
+        int n = cap - 1;
+        n |= n >>> 1;
+        n |= n >>> 2;
+        n |= n >>> 4;
+        n |= n >>> 8;
+        n |= n >>> 16;
+        return (n < 0) ? 1 : (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
+    }
+
+    private void allocate(int tableSize) {
+        keys = new int[tableSize];
+        values = new int[tableSize];
+        mask = tableSize - 1;
+        threshold = Math.min(tableSize - 1, (int) (tableSize * loadFactor));
+    }
+
+    //multiply by golden ratio and fold the high bits in, so sequential ids do not form long probe runs
+    private static int slotFor(int key, int mask) {
+        int h = key * 0x9E3779B9;
+        h ^= h >>> 16;
+        return h & mask;
+    }
+
+
+    public void put(int key, int value) {
+
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroKeyValue = value;
+            return;
+        }
+
+        int slot = slotFor(key, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+
+        size++;
+        if (size > threshold) {
+            resize();
+        }
+    }
+
+    //adds delta to the value of the key (absent key counts as 0) and returns the new value
+    public int addTo(int key, int delta) {
+
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                zeroKeyValue = 0;
+                size++;
+            }
+            zeroKeyValue += delta;
+            return zeroKeyValue;
+        }
+
+        int slot = slotFor(key, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] += delta;
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+
+        size++;
+        if (size > threshold) {
+            resize();
+        }
+        return delta;
+    }
+
+    public int getOrDefault(int key, int defaultValue) {
+
+        if (key == 0) {
+            return hasZeroKey ? zeroKeyValue : defaultValue;
+        }
+
+        int slot = slotFor(key, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    public boolean containsKey(int key) {
+
+        if (key == 0) {
+            return hasZeroKey;
+        }
+
+        int slot = slotFor(key, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    //returns the removed value, or defaultValue if key was not present
+    public int remove(int key, int defaultValue) {
+
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return defaultValue;
+            }
+            hasZeroKey = false;
+            size--;
+            return zeroKeyValue;
+        }
+
+        int slot = slotFor(key, mask);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                int oldValue = values[slot];
+                shiftBack(slot);
+                size--;
+                return oldValue;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    //backward shift deletion: pull the following entries of the probe run into the hole,
+    //so lookups never need a tombstone to keep probing past a deleted slot
+    private void shiftBack(int hole) {
+
+        int slot = (hole + 1) & mask;
+        while (keys[slot] != 0) {
+            int home = slotFor(keys[slot], mask);
+            //entry can move to the hole only if the hole lies between its home slot and its current slot
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                keys[hole] = keys[slot];
+                values[hole] = values[slot];
+                hole = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[hole] = 0;
+        values[hole] = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, 0);
+        hasZeroKey = false;
+        size = 0;
+    }
+
+    private void resize() {
+
+        if (keys.length >= MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("IntIntOpenHashMap is full");
+        }
+
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length << 1);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != 0) {
+                int slot = slotFor(key, mask);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    public static void main(String args[]) {
+
+        IntIntOpenHashMap productCategoryIdVsCount = new IntIntOpenHashMap();
+        productCategoryIdVsCount.addTo(1, 2);
+        productCategoryIdVsCount.addTo(4, 1);
+        productCategoryIdVsCount.addTo(1, 3);
+        productCategoryIdVsCount.put(0, 7);
+
+        System.out.println(productCategoryIdVsCount.getOrDefault(1, 0));
+        System.out.println(productCategoryIdVsCount.getOrDefault(0, 0));
+
+        productCategoryIdVsCount.remove(1, 0);
+        System.out.println(productCategoryIdVsCount.containsKey(1) + " " + productCategoryIdVsCount.size());
+    }
+}
@@ -0,0 +1,84 @@
+package LowLevelDesign.DesignDataStructures;
+
+//log-linear latency histogram in the style of HdrHistogram, values in nanoseconds
+//values below 128 have a bucket each, above that every power of two range is split into 64 buckets
+//so a percentile is off by less than 1/64 (1.6%), and recording is a few shifts and one array increment
+//not thread safe, ex: every load generator thread records into its own histogram and they are added up at the end
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    private static final int NO_OF_BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS + LINEAR_LIMIT;
+
+    final long[] counts = new long[NO_OF_BUCKETS];
+    long totalCount;
+    long totalValue;
+    long maxValue;
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts[bucketOf(value)]++;
+        totalCount++;
+        totalValue += value;
+        maxValue = Math.max(maxValue, value);
+    }
+
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < NO_OF_BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        totalValue += other.totalValue;
+        maxValue = Math.max(maxValue, other.maxValue);
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMaxValue() {
+        return maxValue;
+    }
+
+    public double getMean() {
+        return totalCount == 0 ? 0 : (double) totalValue / totalCount;
+    }
+
+    //highest value of the bucket holding the percentile, ex: 99.9
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(totalCount * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < NO_OF_BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    //values below LINEAR_LIMIT map to themselves
+    //above, shift drops all but the top 7 bits, which are in [64, 128) and pick the bucket inside the range
+    private static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    private static long highestValueOf(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+        long subBucket = bucket - ((long) shift << SUB_BUCKET_BITS);
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
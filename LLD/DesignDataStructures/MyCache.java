@@ -0,0 +1,359 @@
+package LowLevelDesign.DesignDataStructures;
+
+import java.util.concurrent.TimeUnit;
+
+//bounded in-process cache on top of MyHashMap, not thread safe (same as MyHashMap)
+//every entry is a Node which is also linked into an intrusive doubly linked list, so moving or evicting is O(1)
+//
+//LRU        : one access ordered list, least recently used entry is evicted
+//W_TINY_LFU : small LRU window (1%) in front of a segmented LRU main region (20% probation, 80% protected)
+//             an entry leaving the window is admitted into main only if the count-min sketch says
+//             it is used more often than the main region's eviction victim, so one-hit wonders can not flush hot entries
+//
+//entries can also expire a fixed time after they were written, expired entries are dropped lazily when read
+public class MyCache<K,V> {
+
+    public enum EvictionPolicy {
+        LRU,
+        W_TINY_LFU;
+    }
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    static final class Node<K,V> {
+
+        K key;
+        V value;
+        long expireAtNanos;
+        int queue;
+        Node<K,V> prev;
+        Node<K,V> next;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    //doubly linked list with a sentinel node, head side is the eviction side
+    static final class AccessOrderList<K,V> {
+
+        final Node<K,V> sentinel = new Node<>(null, null);
+        int size;
+
+        AccessOrderList() {
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+        }
+
+        void addLast(Node<K,V> node) {
+            node.prev = sentinel.prev;
+            node.next = sentinel;
+            sentinel.prev.next = node;
+            sentinel.prev = node;
+            size++;
+        }
+
+        void remove(Node<K,V> node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        void moveToLast(Node<K,V> node) {
+            remove(node);
+            addLast(node);
+        }
+
+        Node<K,V> first() {
+            return sentinel.next == sentinel ? null : sentinel.next;
+        }
+    }
+
+    //4 rows of 4-bit style saturating counters, all counters are halved after sampleSize increments
+    //so that the old popularity fades away
+    static final class CountMinSketch {
+
+        private static final int ROWS = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x97cb3127, 0xb4b82e39, 0x5bd1e995, 0x27d4eb2f};
+
+        final byte[][] counters;
+        final int mask;
+        final int sampleSize;
+        int additions;
+
+        CountMinSketch(int maximumSize) {
+            int width = Integer.highestOneBit(Math.max(16, maximumSize) * 2 - 1);
+            counters = new byte[ROWS][width];
+            mask = width - 1;
+            sampleSize = 10 * Math.max(16, maximumSize);
+        }
+
+        private int indexOf(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        void increment(Object key) {
+            int hash = MyHashMap.hash(key);
+            boolean added = false;
+            for (int row = 0; row < ROWS; row++) {
+                int index = indexOf(hash, row);
+                if (counters[row][index] < MAX_COUNT) {
+                    counters[row][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(Object key) {
+            int hash = MyHashMap.hash(key);
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < ROWS; row++) {
+                frequency = Math.min(frequency, counters[row][indexOf(hash, row)]);
+            }
+            return frequency;
+        }
+
+        private void reset() {
+            for (byte[] row : counters) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>>= 1;
+                }
+            }
+            additions >>>= 1;
+        }
+    }
+
+
+    final MyHashMap<K, Node<K,V>> map;
+    final EvictionPolicy evictionPolicy;
+    final int maximumSize;
+    final long expireAfterWriteNanos;
+
+    final AccessOrderList<K,V>[] queues;
+    final int windowMaximum;
+    final int protectedMaximum;
+    final CountMinSketch sketch;
+
+    long hitCount;
+    long missCount;
+    long evictionCount;
+    long expirationCount;
+
+
+    public MyCache(int maximumSize, EvictionPolicy evictionPolicy) {
+        this(maximumSize, evictionPolicy, 0, TimeUnit.NANOSECONDS);
+    }
+
+    //expireAfterWrite of 0 means entries never expire
+    public MyCache(int maximumSize, EvictionPolicy evictionPolicy, long expireAfterWrite, TimeUnit unit) {
+
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Illegal maximum size: " + maximumSize);
+        }
+        if (expireAfterWrite < 0) {
+            throw new IllegalArgumentException("Illegal expire after write: " + expireAfterWrite);
+        }
+        this.maximumSize = maximumSize;
+        this.evictionPolicy = evictionPolicy;
+        this.expireAfterWriteNanos = unit.toNanos(expireAfterWrite);
+        this.map = new MyHashMap<>(maximumSize);
+
+        queues = newQueues(3);
+        if (evictionPolicy == EvictionPolicy.W_TINY_LFU) {
+            windowMaximum = Math.max(1, maximumSize / 100);
+            protectedMaximum = (int) ((maximumSize - windowMaximum) * 0.8);
+            sketch = new CountMinSketch(maximumSize);
+        } else {
+            windowMaximum = maximumSize;
+            protectedMaximum = 0;
+            sketch = null;
+        }
+    }
+
+    //generic array can not be created directly, every slot holds an empty AccessOrderList<K,V>
+    @SuppressWarnings("unchecked")
+    private static <K,V> AccessOrderList<K,V>[] newQueues(int length) {
+        AccessOrderList<K,V>[] queues = (AccessOrderList<K,V>[]) new AccessOrderList<?,?>[length];
+        for (int i = 0; i < length; i++) {
+            queues[i] = new AccessOrderList<>();
+        }
+        return queues;
+    }
+
+
+    public V get(K key) {
+
+        if (sketch != null) {
+            sketch.increment(key);
+        }
+
+        Node<K,V> node = map.get(key);
+        if (node == null) {
+            missCount++;
+            return null;
+        }
+        if (hasExpired(node, System.nanoTime())) {
+            removeNode(node);
+            expirationCount++;
+            missCount++;
+            return null;
+        }
+
+        hitCount++;
+        onAccess(node);
+        return node.value;
+    }
+
+    public void put(K key, V value) {
+
+        if (sketch != null) {
+            sketch.increment(key);
+        }
+
+        Node<K,V> node = map.get(key);
+        if (node != null) {
+            node.value = value;
+            node.expireAtNanos = expireAtFromNow();
+            onAccess(node);
+            return;
+        }
+
+        node = new Node<>(key, value);
+        node.expireAtNanos = expireAtFromNow();
+        node.queue = WINDOW;
+        map.put(key, node);
+        queues[WINDOW].addLast(node);
+
+        if (evictionPolicy == EvictionPolicy.LRU) {
+            if (map.size() > maximumSize) {
+                evict(queues[WINDOW].first());
+            }
+        } else {
+            evictWTinyLfu();
+        }
+    }
+
+    public void invalidate(K key) {
+        Node<K,V> node = map.get(key);
+        if (node != null) {
+            removeNode(node);
+        }
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getExpirationCount() {
+        return expirationCount;
+    }
+
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    private long expireAtFromNow() {
+        return expireAfterWriteNanos == 0 ? 0 : System.nanoTime() + expireAfterWriteNanos;
+    }
+
+    private boolean hasExpired(Node<K,V> node, long now) {
+        return node.expireAtNanos != 0 && now - node.expireAtNanos >= 0;
+    }
+
+    private void onAccess(Node<K,V> node) {
+
+        if (node.queue == PROBATION) {
+            //second hit in main region, promote to protected
+            queues[PROBATION].remove(node);
+            node.queue = PROTECTED;
+            queues[PROTECTED].addLast(node);
+            if (queues[PROTECTED].size > protectedMaximum) {
+                Node<K,V> demoted = queues[PROTECTED].first();
+                queues[PROTECTED].remove(demoted);
+                demoted.queue = PROBATION;
+                queues[PROBATION].addLast(demoted);
+            }
+        } else {
+            queues[node.queue].moveToLast(node);
+        }
+    }
+
+    private void evictWTinyLfu() {
+
+        if (queues[WINDOW].size <= windowMaximum) {
+            return;
+        }
+
+        //window overflowed, its oldest entry becomes a candidate for the main region
+        Node<K,V> candidate = queues[WINDOW].first();
+        queues[WINDOW].remove(candidate);
+        candidate.queue = PROBATION;
+        queues[PROBATION].addLast(candidate);
+
+        if (map.size() <= maximumSize) {
+            return;
+        }
+
+        Node<K,V> victim = queues[PROBATION].first();
+        if (victim == candidate) {
+            victim = queues[PROTECTED].first();
+        }
+        if (victim == null || sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+            evict(candidate);
+        } else {
+            evict(victim);
+        }
+    }
+
+    private void evict(Node<K,V> node) {
+        removeNode(node);
+        evictionCount++;
+    }
+
+    private void removeNode(Node<K,V> node) {
+        map.remove(node.key);
+        queues[node.queue].remove(node);
+    }
+
+    public static void main(String args[]) throws InterruptedException {
+
+        MyCache<Integer, String> userCache = new MyCache<>(2, EvictionPolicy.LRU);
+        userCache.put(1, "user1");
+        userCache.put(2, "user2");
+        userCache.get(1);
+        userCache.put(3, "user3"); //evicts 2, as 1 was used recently
+        System.out.println(userCache.get(1) + " " + userCache.get(2) + " " + userCache.get(3));
+
+        MyCache<String, Integer> movieCache = new MyCache<>(100, EvictionPolicy.W_TINY_LFU, 50, TimeUnit.MILLISECONDS);
+        movieCache.put("BAAHUBALI", 2);
+        System.out.println(movieCache.get("BAAHUBALI"));
+        Thread.sleep(100);
+        System.out.println(movieCache.get("BAAHUBALI"));
+
+        System.out.println("hits : " + movieCache.getHitCount() + ", misses : " + movieCache.getMissCount()
+                + ", expired : " + movieCache.getExpirationCount());
+    }
+}
@@ -0,0 +1,83 @@
+package LowLevelDesign.DesignDataStructures;
+
+import java.util.Random;
+
+//hit rate and throughput of MyCache LRU vs W_TINY_LFU on Zipfian access traces
+public class MyCacheBenchmark {
+
+    private static final int NO_OF_ITEMS = 1_000_000;
+    private static final int TRACE_LENGTH = 5_000_000;
+    private static final int[] CACHE_SIZES = {1_000, 10_000, 100_000};
+    private static final double[] ZIPF_EXPONENTS = {0.8, 0.99};
+
+    static long blackhole;
+
+    public static void main(String args[]) {
+
+        for (double exponent : ZIPF_EXPONENTS) {
+
+            Integer[] trace = zipfianTrace(exponent, new Random(42));
+
+            for (int cacheSize : CACHE_SIZES) {
+                //first run of each pair only warms up the JIT
+                run(trace, cacheSize, MyCache.EvictionPolicy.LRU);
+                run(trace, cacheSize, MyCache.EvictionPolicy.W_TINY_LFU);
+
+                String lru = run(trace, cacheSize, MyCache.EvictionPolicy.LRU);
+                String tinyLfu = run(trace, cacheSize, MyCache.EvictionPolicy.W_TINY_LFU);
+                System.out.printf("zipf %.2f  size %7d   LRU %s   W_TINY_LFU %s%n", exponent, cacheSize, lru, tinyLfu);
+            }
+        }
+    }
+
+    //read-through usage: get, and put on miss
+    private static String run(Integer[] trace, int cacheSize, MyCache.EvictionPolicy policy) {
+
+        MyCache<Integer, Integer> cache = new MyCache<>(cacheSize, policy);
+        long start = System.nanoTime();
+        for (Integer key : trace) {
+            Integer value = cache.get(key);
+            if (value == null) {
+                cache.put(key, key);
+            } else {
+                blackhole += value;
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        return String.format("hit %5.1f%% %6.1f ns/op", cache.hitRate() * 100, (double) nanos / trace.length);
+    }
+
+    //item i (0 based) is picked with probability proportional to 1 / (i + 1)^exponent
+    private static Integer[] zipfianTrace(double exponent, Random random) {
+
+        double[] cumulative = new double[NO_OF_ITEMS];
+        double sum = 0;
+        for (int i = 0; i < NO_OF_ITEMS; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cumulative[i] = sum;
+        }
+
+        //keys are scrambled, so popular items are not also neighbours in the hash table
+        Integer[] keys = new Integer[NO_OF_ITEMS];
+        for (int i = 0; i < NO_OF_ITEMS; i++) {
+            keys[i] = i * 0x9E3779B9;
+        }
+
+        Integer[] trace = new Integer[TRACE_LENGTH];
+        for (int t = 0; t < TRACE_LENGTH; t++) {
+            double u = random.nextDouble() * sum;
+            int low = 0;
+            int high = NO_OF_ITEMS - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < u) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            trace[t] = keys[low];
+        }
+        return trace;
+    }
+}
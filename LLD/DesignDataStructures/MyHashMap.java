@@ -1,21 +1,52 @@
 package LowLevelDesign.DesignDataStructures;
 
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
 public class MyHashMap<K,V> {
 
     private static final int  INITIAL_SIZE = 1<<4; //16
     private static final int MAXIMUM_CAPACITY = 1 << 30;
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    //no of buckets of the old table moved to the new table on every put, while a resize is in progress
+    private static final int REHASH_BUCKETS_PER_PUT = 4;
+
+    Entry<K,V>[] hashTable;
+
+    //old table during incremental rehash, null when no resize is in progress
+    Entry<K,V>[] oldTable;
+    //next bucket of oldTable which still has to be moved
+    int rehashIndex;
 
-    Entry[] hashTable;
+    int size;
+    int threshold;
+    final float loadFactor;
+
+    //incremented on every structural change, cursors use it to detect concurrent modification
+    int modCount;
 
 
     MyHashMap(){
 
-        hashTable= new Entry[INITIAL_SIZE];
+        this(INITIAL_SIZE, DEFAULT_LOAD_FACTOR);
     }
 
     MyHashMap(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    MyHashMap(int capacity, float loadFactor) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + capacity);
+        }
+        if (loadFactor <= 0 || Float.isNaN(loadFactor)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
         int tableSize = tableSizeFor(capacity);
-        hashTable= new Entry[tableSize];
+        hashTable= newTable(tableSize);
+        threshold = thresholdFor(tableSize);
     }
 
      final int tableSizeFor(int cap) {
@@ -28,14 +59,40 @@ public class MyHashMap<K,V> {
         return (n < 0) ? 1 : (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
     }
 
+    private int thresholdFor(int tableSize) {
+        if (tableSize >= MAXIMUM_CAPACITY) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) Math.min(tableSize * loadFactor, Integer.MAX_VALUE);
+    }
 
-    class Entry<K,V>{
+    //generic array can not be created directly, every slot holds an Entry<K,V> only
+    @SuppressWarnings("unchecked")
+    private static <K,V> Entry<K,V>[] newTable(int length) {
+        return (Entry<K,V>[]) new Entry<?,?>[length];
+    }
 
+    //spread the higher bits of hashCode to the lower bits, as table index only uses the lower bits
+    static final int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    //table length is always power of two, so masking is same as modulo and never negative
+    private static int indexFor(int hash, int length) {
+        return hash & (length - 1);
+    }
+
+
+    static class Entry<K,V>{
+
+        final int hash;
         K key;
         V value;
-        Entry next;
+        Entry<K,V> next;
 
-        Entry(K k, V v) {
+        Entry(int h, K k, V v) {
+            hash = h;
             key = k;
             value = v;
         }
@@ -59,46 +116,566 @@ public class MyHashMap<K,V> {
     }
 
 
+    //bucket with more entries than this is converted from list to tree
+    static final int TREEIFY_THRESHOLD = 8;
+    //tree bucket with these many or fewer entries left after a remove is converted back to list
+    static final int UNTREEIFY_THRESHOLD = 6;
+
+    //entry of a tree bucket, all entries of the bucket are also linked through next
+    static class TreeEntry<K,V> extends Entry<K,V> {
+
+        TreeEntry<K,V> left;
+        TreeEntry<K,V> right;
+        TreeEntry<K,V> prev;
+        int height = 1;
+
+        TreeEntry(int h, K k, V v) {
+            super(h, k, v);
+        }
+    }
+
+    //placed at the table index instead of the list head, when bucket is treeified
+    //it is a self balancing (AVL) tree ordered by hash, then by compareTo for Comparable keys,
+    //and then by class name and identity hash code to break the ties
+    static class TreeBin<K,V> extends Entry<K,V> {
+
+        TreeEntry<K,V> root;
+        TreeEntry<K,V> first;
+        int count;
+
+        TreeBin() {
+            super(-1, null, null);
+        }
+
+        TreeEntry<K,V> find(int h, Object k) {
+            return find(root, h, k);
+        }
+
+        private TreeEntry<K,V> find(TreeEntry<K,V> p, int h, Object k) {
+
+            while (p != null) {
+                if (h < p.hash) {
+                    p = p.left;
+                } else if (h > p.hash) {
+                    p = p.right;
+                } else {
+                    Object pk = p.key;
+                    if (pk == k || k.equals(pk)) {
+                        return p;
+                    }
+                    int dir = compareComparables(k, pk);
+                    if (dir < 0) {
+                        p = p.left;
+                    } else if (dir > 0) {
+                        p = p.right;
+                    } else {
+                        //order can not be decided, so key can be on either side
+                        TreeEntry<K,V> q = find(p.right, h, k);
+                        if (q != null) {
+                            return q;
+                        }
+                        p = p.left;
+                    }
+                }
+            }
+            return null;
+        }
+
+        //key of the entry must not be present in the bin
+        void putEntry(TreeEntry<K,V> entry) {
+            entry.left = null;
+            entry.right = null;
+            entry.height = 1;
+            entry.prev = null;
+            entry.next = first;
+            if (first != null) {
+                first.prev = entry;
+            }
+            first = entry;
+            root = insert(root, entry);
+            count++;
+        }
+
+        void removeEntry(TreeEntry<K,V> entry) {
+
+            //unlink from the bin list
+            if (entry.prev == null) {
+                first = (TreeEntry<K,V>) entry.next;
+            } else {
+                entry.prev.next = entry.next;
+            }
+            if (entry.next != null) {
+                ((TreeEntry<K,V>) entry.next).prev = entry.prev;
+            }
+            count--;
+
+            //unlink from the tree, rebuild it in the very rare case the path to the entry could not be decided
+            removed = false;
+            root = delete(root, entry);
+            if (!removed) {
+                root = null;
+                for (TreeEntry<K,V> node = first; node != null; node = (TreeEntry<K,V>) node.next) {
+                    node.left = null;
+                    node.right = null;
+                    node.height = 1;
+                    root = insert(root, node);
+                }
+            }
+        }
+
+        private boolean removed;
+
+        private TreeEntry<K,V> delete(TreeEntry<K,V> p, TreeEntry<K,V> x) {
+            if (p == null) {
+                return null;
+            }
+            if (p == x) {
+                removed = true;
+                if (p.left == null) {
+                    return p.right;
+                }
+                if (p.right == null) {
+                    return p.left;
+                }
+                TreeEntry<K,V> successor = p.right;
+                while (successor.left != null) {
+                    successor = successor.left;
+                }
+                successor.right = deleteMin(p.right);
+                successor.left = p.left;
+                return rebalance(successor);
+            }
+            if (direction(x, p) < 0) {
+                p.left = delete(p.left, x);
+            } else {
+                p.right = delete(p.right, x);
+            }
+            return rebalance(p);
+        }
+
+        private TreeEntry<K,V> deleteMin(TreeEntry<K,V> p) {
+            if (p.left == null) {
+                return p.right;
+            }
+            p.left = deleteMin(p.left);
+            return rebalance(p);
+        }
+
+        private TreeEntry<K,V> insert(TreeEntry<K,V> p, TreeEntry<K,V> x) {
+            if (p == null) {
+                return x;
+            }
+            if (direction(x, p) < 0) {
+                p.left = insert(p.left, x);
+            } else {
+                p.right = insert(p.right, x);
+            }
+            return rebalance(p);
+        }
+
+        private int direction(TreeEntry<K,V> x, TreeEntry<K,V> p) {
+            if (x.hash != p.hash) {
+                return x.hash < p.hash ? -1 : 1;
+            }
+            int dir = compareComparables(x.key, p.key);
+            return dir != 0 ? dir : tieBreakOrder(x.key, p.key);
+        }
+
+        TreeEntry<K,V> rebalance(TreeEntry<K,V> p) {
+            updateHeight(p);
+            int balance = height(p.left) - height(p.right);
+            if (balance > 1) {
+                if (height(p.left.left) < height(p.left.right)) {
+                    p.left = rotateLeft(p.left);
+                }
+                return rotateRight(p);
+            }
+            if (balance < -1) {
+                if (height(p.right.right) < height(p.right.left)) {
+                    p.right = rotateRight(p.right);
+                }
+                return rotateLeft(p);
+            }
+            return p;
+        }
+
+        private TreeEntry<K,V> rotateLeft(TreeEntry<K,V> p) {
+            TreeEntry<K,V> r = p.right;
+            p.right = r.left;
+            r.left = p;
+            updateHeight(p);
+            updateHeight(r);
+            return r;
+        }
+
+        private TreeEntry<K,V> rotateRight(TreeEntry<K,V> p) {
+            TreeEntry<K,V> l = p.left;
+            p.left = l.right;
+            l.right = p;
+            updateHeight(p);
+            updateHeight(l);
+            return l;
+        }
+
+        private int height(TreeEntry<K,V> p) {
+            return p == null ? 0 : p.height;
+        }
+
+        private void updateHeight(TreeEntry<K,V> p) {
+            p.height = 1 + Math.max(height(p.left), height(p.right));
+        }
+    }
+
+    //compareTo result when both keys are Comparable of the same class, else 0
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static int compareComparables(Object k, Object pk) {
+        if (k instanceof Comparable && pk != null && k.getClass() == pk.getClass()) {
+            return ((Comparable) k).compareTo(pk);
+        }
+        return 0;
+    }
+
+    static int tieBreakOrder(Object a, Object b) {
+        int d = a.getClass().getName().compareTo(b.getClass().getName());
+        if (d == 0) {
+            d = System.identityHashCode(a) <= System.identityHashCode(b) ? -1 : 1;
+        }
+        return d;
+    }
+
+    private TreeBin<K,V> treeify(Entry<K,V> head) {
+        TreeBin<K,V> bin = new TreeBin<>();
+        Entry<K,V> node = head;
+        while (node != null) {
+            Entry<K,V> next = node.next;
+            bin.putEntry(asTreeEntry(node));
+            node = next;
+        }
+        return bin;
+    }
+
+    private TreeEntry<K,V> asTreeEntry(Entry<K,V> node) {
+        if (node instanceof TreeEntry) {
+            return (TreeEntry<K,V>) node;
+        }
+        return new TreeEntry<>(node.hash, node.key, node.value);
+    }
+
+    //entries of a small tree bucket are linked back as a plain list, the TreeEntry<K,V> objects are reused
+    private Entry<K,V> untreeify(TreeBin<K,V> bin) {
+        return bin.first;
+    }
+
+    private Entry<K,V> findEntry(Entry<K,V> first, int hash, Object key) {
+
+        if (first instanceof TreeBin) {
+            return ((TreeBin<K,V>) first).find(hash, key);
+        }
+        Entry<K,V> node = first;
+        while (node != null) {
+            if (node.hash == hash && (node.key == key || key.equals(node.key))) {
+                return node;
+            }
+            node = node.next;
+        }
+        return null;
+    }
+
+    //link an entry, whose key is not present in the table, into the bucket
+    private void linkEntry(Entry<K,V>[] table, int index, Entry<K,V> entry) {
+
+        Entry<K,V> first = table[index];
+        if (first instanceof TreeBin) {
+            ((TreeBin<K,V>) first).putEntry(asTreeEntry(entry));
+            return;
+        }
+
+        entry.next = first;
+        table[index] = entry;
+
+        int binCount = 0;
+        for (Entry<K,V> node = entry; node != null; node = node.next) {
+            binCount++;
+        }
+        if (binCount > TREEIFY_THRESHOLD) {
+            table[index] = treeify(entry);
+        }
+    }
+
+
     public void put(K key, V value) {
 
-        int hashCode = key.hashCode() % hashTable.length;
-        Entry node = hashTable[hashCode];
+        if (oldTable != null) {
+            rehashStep();
+        }
+
+        int hash = hash(key);
+
+        //while rehashing, key can still be present in the not yet moved bucket of old table
+        if (oldTable != null) {
+            Entry<K,V> existing = findEntry(oldTable[indexFor(hash, oldTable.length)], hash, key);
+            if (existing != null) {
+                existing.value = value;
+                return;
+            }
+        }
+
+        int index = indexFor(hash, hashTable.length);
+        Entry<K,V> node = hashTable[index];
 
         if(node == null) {
 
-            Entry newNode = new Entry(key, value);
-            hashTable[hashCode] = newNode;
+            Entry<K,V> newNode = new Entry<>(hash, key, value);
+            hashTable[index] = newNode;
+        } else if (node instanceof TreeBin) {
+
+            TreeBin<K,V> bin = (TreeBin<K,V>) node;
+            TreeEntry<K,V> existing = bin.find(hash, key);
+            if (existing != null) {
+                existing.value = value;
+                return;
+            }
+            bin.putEntry(new TreeEntry<>(hash, key, value));
         } else {
-            Entry previousNode = node;
+            Entry<K,V> previousNode = node;
+            int binCount = 0;
             while (node != null) {
 
-                if (node.key == key) {
+                if (node.hash == hash && (node.key == key || key.equals(node.key))) {
                     node.value = value;
                     return;
                 }
                 previousNode = node;
                 node = node.next;
+                binCount++;
             }
-            Entry newNode = new Entry(key,value);
+            Entry<K,V> newNode = new Entry<>(hash, key, value);
             previousNode.next = newNode;
+            if (binCount + 1 > TREEIFY_THRESHOLD) {
+                hashTable[index] = treeify(hashTable[index]);
+            }
+        }
+
+        size++;
+        modCount++;
+        if (size > threshold) {
+            resize();
         }
     }
 
 
     public V get(K key) {
 
-        int hashCode = key.hashCode() % hashTable.length;
-        Entry node = hashTable[hashCode];
+        int hash = hash(key);
+
+        if (oldTable != null) {
+            Entry<K,V> node = findEntry(oldTable[indexFor(hash, oldTable.length)], hash, key);
+            if (node != null) {
+                return node.value;
+            }
+        }
+
+        Entry<K,V> node = findEntry(hashTable[indexFor(hash, hashTable.length)], hash, key);
+        return node == null ? null : node.value;
+    }
+
+    public boolean containsKey(K key) {
+
+        int hash = hash(key);
+        if (oldTable != null && findEntry(oldTable[indexFor(hash, oldTable.length)], hash, key) != null) {
+            return true;
+        }
+        return findEntry(hashTable[indexFor(hash, hashTable.length)], hash, key) != null;
+    }
 
-        while(node != null) {
-            if(node.key.equals(key)) {
-                return (V)node.value;
+    //returns the removed value, or null if key was not present
+    public V remove(K key) {
+
+        int hash = hash(key);
+
+        Entry<K,V> removed = null;
+        if (oldTable != null) {
+            removed = removeEntry(oldTable, indexFor(hash, oldTable.length), hash, key);
+        }
+        if (removed == null) {
+            removed = removeEntry(hashTable, indexFor(hash, hashTable.length), hash, key);
+        }
+        if (removed == null) {
+            return null;
+        }
+        size--;
+        modCount++;
+        return removed.value;
+    }
+
+    private Entry<K,V> removeEntry(Entry<K,V>[] table, int index, int hash, Object key) {
+
+        Entry<K,V> first = table[index];
+        if (first instanceof TreeBin) {
+            TreeBin<K,V> bin = (TreeBin<K,V>) first;
+            TreeEntry<K,V> node = bin.find(hash, key);
+            if (node == null) {
+                return null;
+            }
+            bin.removeEntry(node);
+            if (bin.count <= UNTREEIFY_THRESHOLD) {
+                table[index] = untreeify(bin);
             }
+            return node;
+        }
+
+        Entry<K,V> previousNode = null;
+        Entry<K,V> node = first;
+        while (node != null) {
+            if (node.hash == hash && (node.key == key || key.equals(node.key))) {
+                if (previousNode == null) {
+                    table[index] = node.next;
+                } else {
+                    previousNode.next = node.next;
+                }
+                return node;
+            }
+            previousNode = node;
             node = node.next;
         }
         return null;
     }
 
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    //cursor over all the entries, it allocates nothing per entry, and can be reset() and reused for the next scan
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    //usage : while (cursor.advance()) { cursor.getKey(); cursor.getValue(); }
+    public final class Cursor {
+
+        private Entry<K,V>[] table;
+        private boolean scanningOldTable;
+        private int index;
+        private Entry<K,V> current;
+        private int expectedModCount;
+
+        Cursor() {
+            reset();
+        }
+
+        public void reset() {
+            scanningOldTable = oldTable != null;
+            table = scanningOldTable ? oldTable : hashTable;
+            index = scanningOldTable ? rehashIndex : 0;
+            current = null;
+            expectedModCount = modCount;
+        }
+
+        //moves to the next entry, returns false once all the entries are visited
+        public boolean advance() {
+
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            Entry<K,V> node = current == null ? null : current.next;
+            while (node == null) {
+                if (index >= table.length) {
+                    if (scanningOldTable) {
+                        scanningOldTable = false;
+                        table = hashTable;
+                        index = 0;
+                        continue;
+                    }
+                    current = null;
+                    return false;
+                }
+                node = table[index++];
+                if (node instanceof TreeBin) {
+                    node = ((TreeBin<K,V>) node).first;
+                }
+            }
+            current = node;
+            return true;
+        }
+
+        public K getKey() {
+            return currentEntry().key;
+        }
+
+        public V getValue() {
+            return currentEntry().value;
+        }
+
+        //replacing the value is not a structural change, so it is allowed while scanning
+        public void setValue(V value) {
+            currentEntry().value = value;
+        }
+
+        private Entry<K,V> currentEntry() {
+            if (current == null) {
+                throw new NoSuchElementException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            return current;
+        }
+    }
+
+    //double the table, entries are moved lazily by rehashStep() on the following puts
+    private void resize() {
+
+        if (hashTable.length >= MAXIMUM_CAPACITY) {
+            threshold = Integer.MAX_VALUE;
+            return;
+        }
+
+        //previous resize is still in progress, finish it before starting a new one
+        while (oldTable != null) {
+            rehashStep();
+        }
+
+        int newLength = hashTable.length << 1;
+        modCount++;
+        oldTable = hashTable;
+        hashTable = newTable(newLength);
+        rehashIndex = 0;
+        threshold = thresholdFor(newLength);
+    }
+
+    //move the next few buckets of the old table into the new table
+    //moving entries is a structural change for cursors, even when the put only replaced a value
+    //a tree bucket splits into two buckets of the new table, and each half is rebuilt as
+    //a list, and treeified again only if it still has more than TREEIFY_THRESHOLD entries
+    private void rehashStep() {
+
+        int moved = 0;
+        while (moved < REHASH_BUCKETS_PER_PUT && rehashIndex < oldTable.length) {
+
+            Entry<K,V> first = oldTable[rehashIndex];
+            Entry<K,V> node = first instanceof TreeBin ? ((TreeBin<K,V>) first).first : first;
+            while (node != null) {
+                Entry<K,V> next = node.next;
+                linkEntry(hashTable, indexFor(node.hash, hashTable.length), node);
+                node = next;
+            }
+            oldTable[rehashIndex] = null;
+            rehashIndex++;
+            moved++;
+        }
+        modCount++;
+
+        if (rehashIndex == oldTable.length) {
+            oldTable = null;
+            rehashIndex = 0;
+        }
+    }
+
     public static void main(String args[]) {
 
         MyHashMap<Integer, String> map = new MyHashMap<>(7);
@@ -116,6 +693,39 @@ public class MyHashMap<K,V> {
         String value = map.get(8);
         System.out.println(value);
 
+        //table grows as the entries are added
+        MyHashMap<Integer, Integer> bigMap = new MyHashMap<>();
+        for (int i = 0; i < 500000; i++) {
+            bigMap.put(i, i);
+        }
+        System.out.println(bigMap.size() + " entries, table size " + bigMap.hashTable.length + ", value of 12345 : " + bigMap.get(12345));
+
+        //"Aa" and "BB" have same hashCode, so all 2^12 combinations of them collide into one tree bucket
+        MyHashMap<String, Integer> collidingMap = new MyHashMap<>();
+        String[] collidingKeys = new String[1 << 12];
+        for (int i = 0; i < collidingKeys.length; i++) {
+            StringBuilder key = new StringBuilder();
+            for (int bit = 0; bit < 12; bit++) {
+                key.append((i & (1 << bit)) == 0 ? "Aa" : "BB");
+            }
+            collidingKeys[i] = key.toString();
+            collidingMap.put(collidingKeys[i], i);
+        }
+        System.out.println(collidingMap.size() + " colliding entries, value of " + collidingKeys[777] + " : " + collidingMap.get(collidingKeys[777]));
+
+        //remove most of them, the bucket goes back to a list
+        for (int i = 0; i < collidingKeys.length - 4; i++) {
+            collidingMap.remove(collidingKeys[i]);
+        }
+        System.out.println(collidingMap.size() + " colliding entries left, contains " + collidingKeys[0] + " : " + collidingMap.containsKey(collidingKeys[0]));
+
+        //scan with a cursor, no object is allocated per entry
+        long sum = 0;
+        MyHashMap<Integer, Integer>.Cursor cursor = bigMap.cursor();
+        while (cursor.advance()) {
+            sum += cursor.getValue();
+        }
+        System.out.println("sum of all values : " + sum);
 
     }
 }
@@ -0,0 +1,96 @@
+package LowLevelDesign.DesignDataStructures;
+
+import java.util.HashMap;
+import java.util.Random;
+
+//simple warmed-up timing of MyHashMap vs java.util.HashMap, run it with a fixed heap ex: -Xms2g -Xmx2g
+public class MyHashMapBenchmark {
+
+    private static final int NO_OF_KEYS = 1 << 20;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    //keeps JIT from removing the lookups
+    static long blackhole;
+
+    public static void main(String args[]) {
+
+        //1. sequential keys 0,1,2...
+        Integer[] sequentialKeys = new Integer[NO_OF_KEYS];
+        for (int i = 0; i < NO_OF_KEYS; i++) {
+            sequentialKeys[i] = i;
+        }
+
+        //2. random keys, including negative hash codes
+        Integer[] randomKeys = new Integer[NO_OF_KEYS];
+        Random random = new Random(42);
+        for (int i = 0; i < NO_OF_KEYS; i++) {
+            randomKeys[i] = random.nextInt();
+        }
+
+        //3. adversarial keys, every key has the same hashCode so all of them go to one bucket whatever the hash
+        //spreading does, "Aa" and "BB" have same hashCode, so do all 2^16 strings made of 16 of them
+        String[] adversarialKeys = new String[1 << 16];
+        for (int i = 0; i < adversarialKeys.length; i++) {
+            StringBuilder key = new StringBuilder();
+            for (int bit = 0; bit < 16; bit++) {
+                key.append((i & (1 << bit)) == 0 ? "Aa" : "BB");
+            }
+            adversarialKeys[i] = key.toString();
+        }
+
+        run("sequential", sequentialKeys);
+        run("random", randomKeys);
+        run("adversarial", adversarialKeys);
+    }
+
+    private static <K> void run(String keySetName, K[] keys) {
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            myHashMapRound(keys);
+            hashMapRound(keys);
+        }
+
+        long myHashMapNanos = 0;
+        long hashMapNanos = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            myHashMapNanos += myHashMapRound(keys);
+            hashMapNanos += hashMapRound(keys);
+        }
+
+        //every round does one put and one get per key
+        long opsPerMap = 2L * keys.length * MEASURED_ROUNDS;
+        System.out.printf("%-12s MyHashMap : %6.1f ns/op   HashMap : %6.1f ns/op%n",
+                keySetName, (double) myHashMapNanos / opsPerMap, (double) hashMapNanos / opsPerMap);
+    }
+
+    private static <K> long myHashMapRound(K[] keys) {
+
+        long start = System.nanoTime();
+        MyHashMap<K, K> map = new MyHashMap<>();
+        for (K key : keys) {
+            map.put(key, key);
+        }
+        long sum = 0;
+        for (K key : keys) {
+            sum += map.get(key).hashCode();
+        }
+        blackhole += sum;
+        return System.nanoTime() - start;
+    }
+
+    private static <K> long hashMapRound(K[] keys) {
+
+        long start = System.nanoTime();
+        HashMap<K, K> map = new HashMap<>();
+        for (K key : keys) {
+            map.put(key, key);
+        }
+        long sum = 0;
+        for (K key : keys) {
+            sum += map.get(key).hashCode();
+        }
+        blackhole += sum;
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,293 @@
+package LowLevelDesign.DesignDataStructures;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+//long -> long hash map stored in a memory mapped file instead of Entry objects on the heap
+//the GC never scans the entries, and the map is back as soon as the file is opened again after a restart
+//
+//file layout : [header 64 bytes][slot 0][slot 1]...  where every slot is 16 bytes : key (8) + value (8)
+//open addressing with linear probing, same as IntIntOpenHashMap, key 0 marks a free slot and is kept in the header
+//capacity is fixed when the file is created, as growing would mean rewriting the whole file
+public class OffHeapMyHashMap implements AutoCloseable {
+
+    private static final long MAGIC = 0x4D79486173684D70L; //"MyHashMp"
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 16;
+    private static final float MAX_LOAD_FACTOR = 0.75f;
+
+    //one MappedByteBuffer can map at most 2GB, so the slots are mapped in segments of 2^26 slots (1GB)
+    private static final int SEGMENT_SHIFT = 26;
+    private static final int SLOTS_PER_SEGMENT = 1 << SEGMENT_SHIFT;
+
+    //header offsets
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SIZE_OFFSET = 16;
+    private static final int HAS_ZERO_KEY_OFFSET = 24;
+    private static final int ZERO_KEY_VALUE_OFFSET = 32;
+    //1 once close() has flushed everything, 0 while the map is open, size is only trusted after a clean close
+    private static final int CLEAN_CLOSE_OFFSET = 40;
+
+    final FileChannel channel;
+    final MappedByteBuffer header;
+    final MappedByteBuffer[] segments;
+    final long capacity;
+    final long mask;
+    final long maxSize;
+    long size;
+
+
+    private OffHeapMyHashMap(FileChannel channel, long capacity) throws IOException {
+        this.channel = channel;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.maxSize = (long) (capacity * MAX_LOAD_FACTOR);
+
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        int noOfSegments = (int) ((capacity + SLOTS_PER_SEGMENT - 1) >>> SEGMENT_SHIFT);
+        segments = new MappedByteBuffer[noOfSegments];
+        for (int i = 0; i < noOfSegments; i++) {
+            long firstSlot = (long) i << SEGMENT_SHIFT;
+            long slotsInSegment = Math.min(SLOTS_PER_SEGMENT, capacity - firstSlot);
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_SIZE + firstSlot * SLOT_SIZE, slotsInSegment * SLOT_SIZE);
+        }
+    }
+
+    //create a new map file, replacing the existing one if any
+    public static OffHeapMyHashMap create(Path file, long expectedEntries) throws IOException {
+
+        if (expectedEntries <= 0) {
+            throw new IllegalArgumentException("Illegal expected entries: " + expectedEntries);
+        }
+        long capacity = Long.highestOneBit((long) Math.ceil(expectedEntries / MAX_LOAD_FACTOR) * 2 - 1);
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        //mapping grows the empty file, the new region reads back as zeros so every slot starts out free
+        OffHeapMyHashMap map = new OffHeapMyHashMap(channel, capacity);
+        map.header.putLong(MAGIC_OFFSET, MAGIC);
+        map.header.putLong(CAPACITY_OFFSET, capacity);
+        map.header.putLong(SIZE_OFFSET, 0);
+        return map;
+    }
+
+    //open a map file written earlier by create()
+    public static OffHeapMyHashMap open(Path file) throws IOException {
+
+        if (!Files.exists(file)) {
+            throw new IllegalArgumentException("Map file does not exist: " + file);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer existingHeader = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if (existingHeader.getLong(MAGIC_OFFSET) != MAGIC) {
+            channel.close();
+            throw new IllegalArgumentException("Not a OffHeapMyHashMap file: " + file);
+        }
+        //capacity comes from the file, a wrong one would map past its end or probe with a broken mask
+        long capacity = existingHeader.getLong(CAPACITY_OFFSET);
+        if (capacity <= 0 || Long.bitCount(capacity) != 1 || capacity > (Long.MAX_VALUE - HEADER_SIZE) / SLOT_SIZE
+                || channel.size() != HEADER_SIZE + capacity * SLOT_SIZE) {
+            channel.close();
+            throw new IllegalArgumentException("Corrupt OffHeapMyHashMap file, capacity " + capacity
+                    + " does not match file length " + Files.size(file) + ": " + file);
+        }
+        OffHeapMyHashMap map = new OffHeapMyHashMap(channel, capacity);
+        long size = map.header.getLong(SIZE_OFFSET);
+        //the slots and the size are separate pages, after a crash they can disagree, the slots win
+        if (map.header.getInt(CLEAN_CLOSE_OFFSET) == 0 || size < 0 || size > map.maxSize + 1) {
+            size = map.countEntries();
+            map.header.putLong(SIZE_OFFSET, size);
+        }
+        map.size = size;
+        map.header.putInt(CLEAN_CLOSE_OFFSET, 0);
+        map.header.force();
+        return map;
+    }
+
+    private long countEntries() {
+        long count = header.getInt(HAS_ZERO_KEY_OFFSET) != 0 ? 1 : 0;
+        for (long slot = 0; slot < capacity; slot++) {
+            if (keyAt(slot) != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long slotFor(long key, long mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return h & mask;
+    }
+
+    private long keyAt(long slot) {
+        return segments[(int) (slot >>> SEGMENT_SHIFT)].getLong((int) (slot & (SLOTS_PER_SEGMENT - 1)) * SLOT_SIZE);
+    }
+
+    private long valueAt(long slot) {
+        return segments[(int) (slot >>> SEGMENT_SHIFT)].getLong((int) (slot & (SLOTS_PER_SEGMENT - 1)) * SLOT_SIZE + 8);
+    }
+
+    private void setSlot(long slot, long key, long value) {
+        MappedByteBuffer segment = segments[(int) (slot >>> SEGMENT_SHIFT)];
+        int offset = (int) (slot & (SLOTS_PER_SEGMENT - 1)) * SLOT_SIZE;
+        segment.putLong(offset, key);
+        segment.putLong(offset + 8, value);
+    }
+
+    private void setSize(long newSize) {
+        size = newSize;
+        header.putLong(SIZE_OFFSET, newSize);
+    }
+
+
+    public void put(long key, long value) {
+
+        if (key == 0) {
+            if (header.getInt(HAS_ZERO_KEY_OFFSET) == 0) {
+                header.putInt(HAS_ZERO_KEY_OFFSET, 1);
+                setSize(size + 1);
+            }
+            header.putLong(ZERO_KEY_VALUE_OFFSET, value);
+            return;
+        }
+
+        long slot = slotFor(key, mask);
+        long existingKey;
+        while ((existingKey = keyAt(slot)) != 0) {
+            if (existingKey == key) {
+                setSlot(slot, key, value);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size >= maxSize) {
+            throw new IllegalStateException("OffHeapMyHashMap is full, capacity : " + capacity);
+        }
+        setSlot(slot, key, value);
+        setSize(size + 1);
+    }
+
+    public long get(long key, long defaultValue) {
+
+        if (key == 0) {
+            return header.getInt(HAS_ZERO_KEY_OFFSET) != 0 ? header.getLong(ZERO_KEY_VALUE_OFFSET) : defaultValue;
+        }
+
+        long slot = slotFor(key, mask);
+        long existingKey;
+        while ((existingKey = keyAt(slot)) != 0) {
+            if (existingKey == key) {
+                return valueAt(slot);
+            }
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    public boolean containsKey(long key) {
+
+        if (key == 0) {
+            return header.getInt(HAS_ZERO_KEY_OFFSET) != 0;
+        }
+
+        long slot = slotFor(key, mask);
+        long existingKey;
+        while ((existingKey = keyAt(slot)) != 0) {
+            if (existingKey == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    //returns the removed value, or defaultValue if key was not present
+    public long remove(long key, long defaultValue) {
+
+        if (key == 0) {
+            if (header.getInt(HAS_ZERO_KEY_OFFSET) == 0) {
+                return defaultValue;
+            }
+            header.putInt(HAS_ZERO_KEY_OFFSET, 0);
+            setSize(size - 1);
+            return header.getLong(ZERO_KEY_VALUE_OFFSET);
+        }
+
+        long slot = slotFor(key, mask);
+        long existingKey;
+        while ((existingKey = keyAt(slot)) != 0) {
+            if (existingKey == key) {
+                long oldValue = valueAt(slot);
+                shiftBack(slot);
+                setSize(size - 1);
+                return oldValue;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    //backward shift deletion, same as IntIntOpenHashMap
+    private void shiftBack(long hole) {
+
+        long slot = (hole + 1) & mask;
+        long key;
+        while ((key = keyAt(slot)) != 0) {
+            long home = slotFor(key, mask);
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                setSlot(hole, key, valueAt(slot));
+                hole = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        setSlot(hole, 0, 0);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    //write the dirty pages to the disk, entries put before flush() survive a machine crash
+    public void flush() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        header.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        header.putInt(CLEAN_CLOSE_OFFSET, 1);
+        header.force();
+        channel.close();
+    }
+
+    public static void main(String args[]) throws IOException {
+
+        Path file = Files.createTempFile("offheap-myhashmap", ".map");
+
+        try (OffHeapMyHashMap map = OffHeapMyHashMap.create(file, 1_000_000)) {
+            for (long i = 0; i < 1_000_000; i++) {
+                map.put(i, i * 10);
+            }
+            map.remove(5, -1);
+        }
+
+        //reopen the file, like after a restart
+        try (OffHeapMyHashMap map = OffHeapMyHashMap.open(file)) {
+            System.out.println(map.size() + " entries, value of 12345 : " + map.get(12345, -1)
+                    + ", value of 5 : " + map.get(5, -1));
+        }
+
+        Files.delete(file);
+    }
+}
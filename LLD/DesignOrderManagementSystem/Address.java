@@ -5,12 +5,21 @@ public class Address {
     int pinCode;
     String city;
     String state;
+    //in degrees, used to find the nearest warehouse
+    double latitude;
+    double longitude;
 
     Address(int pinCode, String city, String state){
         this.pinCode = pinCode;
         this.city = city;
         this.state = state;
     }
+
+    Address(int pinCode, String city, String state, double latitude, double longitude){
+        this(pinCode, city, state);
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
     //getters & setters methods
 
 
@@ -37,4 +46,20 @@ public class Address {
     public void setState(String state) {
         this.state = state;
     }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(double latitude) {
+        this.latitude = latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(double longitude) {
+        this.longitude = longitude;
+    }
 }
@@ -7,4 +7,9 @@ public class CardPaymentMode implements PaymentMode{
 
         return true;
     }
+
+    @Override
+    public boolean refund() {
+        return true;
+    }
 }
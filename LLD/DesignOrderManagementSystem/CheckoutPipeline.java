@@ -0,0 +1,282 @@
+package LowLevelDesign.DesignOrderManagementSystem;
+
+import LowLevelDesign.DesignDataStructures.LatencyHistogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+//checkout of an order as a pipeline of stages, RESERVE_STOCK -> AUTHORIZE_PAYMENT -> CONFIRM -> INVOICE
+//every stage has its own threads and bounded queue, so a slow payment provider holds only the payment threads,
+//and the caller gets a future back at once instead of waiting for the payment
+//
+//backpressure : a full RESERVE_STOCK queue rejects the checkout at once, the future fails with
+//               RejectedExecutionException. a full queue further down runs the task on the thread of the stage
+//               before it, which slows that stage down instead of dropping an order halfway
+//timeouts     : a stage gives up after its timeout and the future fails with TimeoutException. CONFIRM has no
+//               timeout by default, the order is committed there
+//compensation : the reservation is released if the payment fails or times out, and the payment is refunded if it
+//               succeeds after its timeout or the confirm fails. a confirm which times out but still commits the
+//               reservation wins, the order goes on to the invoice. a failed invoice does not undo the order,
+//               it can be generated again later
+//metrics      : latency of every stage from the task being queued to being done, and the completed, failed and
+//               timed out tasks of every stage. a task which times out while still queued is skipped, not run late
+//threads      : the hand over to the next stage runs on the thread which completed the stage : a thread of the
+//               stage, or the CompletableFuture timer thread after a timeout. it only queues the next task or
+//               releases the reservation, so it is short, and on a full queue the task runs right there (backpressure).
+//               a RESERVE_STOCK rejection completes the future on the thread calling checkout. callers who do real
+//               work when the future completes should use the async variants with their own executor
+//
+//the future completes with true once the order is confirmed and invoiced, false if out of stock or the payment failed
+public class CheckoutPipeline {
+
+    static final class StageSettings {
+
+        final int threads;
+        final int queueCapacity;
+        //0 for no timeout
+        final long timeoutMillis;
+
+        StageSettings(int threads, int queueCapacity, long timeoutMillis) {
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+            this.timeoutMillis = timeoutMillis;
+        }
+    }
+
+    public static final class StageMetrics {
+
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder completed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder timedOut = new LongAdder();
+        final ThreadPoolExecutor executor;
+
+        StageMetrics(ThreadPoolExecutor executor) {
+            this.executor = executor;
+        }
+
+        synchronized void record(long nanos) {
+            latency.record(nanos);
+        }
+
+        //latency in nanoseconds, ex: 99.9
+        public synchronized long getLatencyAtPercentile(double percentile) {
+            return latency.getValueAtPercentile(percentile);
+        }
+
+        public synchronized long getMaxLatency() {
+            return latency.getMaxValue();
+        }
+
+        public long getCompleted() {
+            return completed.sum();
+        }
+
+        public long getFailed() {
+            return failed.sum();
+        }
+
+        public long getTimedOut() {
+            return timedOut.sum();
+        }
+
+        public int getQueueSize() {
+            return executor.getQueue().size();
+        }
+    }
+
+    final Map<CheckoutStage, StageSettings> stageSettings;
+    final Map<CheckoutStage, ThreadPoolExecutor> stageExecutors = new EnumMap<>(CheckoutStage.class);
+    final Map<CheckoutStage, StageMetrics> stageMetrics = new EnumMap<>(CheckoutStage.class);
+
+    CheckoutPipeline() {
+        this(defaultSettings());
+    }
+
+    CheckoutPipeline(Map<CheckoutStage, StageSettings> stageSettings) {
+        this.stageSettings = new EnumMap<>(stageSettings);
+        for (CheckoutStage stage : CheckoutStage.values()) {
+            StageSettings settings = this.stageSettings.get(stage);
+            if (settings == null) {
+                throw new IllegalArgumentException("No settings for stage: " + stage);
+            }
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(settings.threads, settings.threads, 0,
+                    TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(settings.queueCapacity), threadFactory(stage),
+                    stage == CheckoutStage.RESERVE_STOCK ? new ThreadPoolExecutor.AbortPolicy() : runOnCaller());
+            stageExecutors.put(stage, executor);
+            stageMetrics.put(stage, new StageMetrics(executor));
+        }
+    }
+
+    static Map<CheckoutStage, StageSettings> defaultSettings() {
+        Map<CheckoutStage, StageSettings> settings = new EnumMap<>(CheckoutStage.class);
+        settings.put(CheckoutStage.RESERVE_STOCK, new StageSettings(2, 1024, 500));
+        //payment threads mostly wait for the payment provider, so there are many more of them
+        settings.put(CheckoutStage.AUTHORIZE_PAYMENT, new StageSettings(32, 1024, 5000));
+        settings.put(CheckoutStage.CONFIRM, new StageSettings(2, 1024, 0));
+        settings.put(CheckoutStage.INVOICE, new StageSettings(2, 1024, 2000));
+        return settings;
+    }
+
+    public CompletableFuture<Boolean> checkout(Order order, PaymentMode paymentMode) {
+
+        CompletableFuture<Boolean> checkout = new CompletableFuture<>();
+        runStage(CheckoutStage.RESERVE_STOCK, order::reserveItems, reservation -> {
+            //out of stock gives a null reservation, nothing to give back then
+            if (reservation != null) {
+                reservation.release();
+            }
+        })
+                .whenComplete((reservation, error) -> {
+                    if (error != null || reservation == null) {
+                        order.orderStatus = OrderStatus.CANCELLED;
+                        complete(checkout, false, error);
+                        return;
+                    }
+                    authorizePayment(order, paymentMode, reservation, checkout);
+                });
+        return checkout;
+    }
+
+    private void authorizePayment(Order order, PaymentMode paymentMode, StockReservation reservation,
+                                  CompletableFuture<Boolean> checkout) {
+
+        runStage(CheckoutStage.AUTHORIZE_PAYMENT, () -> order.makePayment(paymentMode), isPaymentSuccess -> {
+            //paid after the timeout, the reservation is already given back
+            if (isPaymentSuccess) {
+                order.payment.refund();
+            }
+        }).whenComplete((isPaymentSuccess, error) -> {
+            if (error != null || !isPaymentSuccess) {
+                order.cancel(reservation);
+                complete(checkout, false, error);
+                return;
+            }
+            confirm(order, reservation, checkout);
+        });
+    }
+
+    private void confirm(Order order, StockReservation reservation, CompletableFuture<Boolean> checkout) {
+
+        runStage(CheckoutStage.CONFIRM, () -> order.confirm(reservation), null)
+                .whenComplete((isConfirmed, error) -> {
+                    if (error == null && isConfirmed) {
+                        invoice(order, checkout);
+                        return;
+                    }
+                    if (order.cancel(reservation)) {
+                        order.payment.refund();
+                        complete(checkout, false, error);
+                        return;
+                    }
+                    //the confirm still running after its timeout has committed the reservation, the order stands
+                    invoice(order, checkout);
+                });
+    }
+
+    private void invoice(Order order, CompletableFuture<Boolean> checkout) {
+
+        runStage(CheckoutStage.INVOICE, () -> {
+            order.generateOrderInvoice();
+            return true;
+        }, null).whenComplete((isInvoiced, error) -> checkout.complete(true));
+    }
+
+    private static void complete(CompletableFuture<Boolean> checkout, boolean result, Throwable error) {
+        if (error != null) {
+            checkout.completeExceptionally(error);
+        } else {
+            checkout.complete(result);
+        }
+    }
+
+    //runs the task on the threads of the stage, the future fails with TimeoutException after the stage timeout
+    //and a result the task gives after that goes to lateResult, to be undone
+    private <T> CompletableFuture<T> runStage(CheckoutStage stage, Supplier<T> task, Consumer<T> lateResult) {
+
+        StageMetrics metrics = stageMetrics.get(stage);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        try {
+            stageExecutors.get(stage).execute(() -> {
+                //timed out in the queue, the timeout is already counted and the caller has moved on
+                if (result.isDone()) {
+                    return;
+                }
+                T value;
+                try {
+                    value = task.get();
+                } catch (RuntimeException e) {
+                    metrics.failed.increment();
+                    result.completeExceptionally(e);
+                    return;
+                }
+                metrics.record(System.nanoTime() - queuedAt);
+                metrics.completed.increment();
+                if (!result.complete(value) && lateResult != null) {
+                    lateResult.accept(value);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            metrics.failed.increment();
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        long timeoutMillis = stageSettings.get(stage).timeoutMillis;
+        if (timeoutMillis > 0) {
+            result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).whenComplete((value, error) -> {
+                if (error instanceof TimeoutException) {
+                    metrics.timedOut.increment();
+                }
+            });
+        }
+        return result;
+    }
+
+    public StageMetrics getMetrics(CheckoutStage stage) {
+        return stageMetrics.get(stage);
+    }
+
+    //stages are stopped in order, so every checkout accepted before is finished
+    public void shutdown() throws InterruptedException {
+        for (CheckoutStage stage : CheckoutStage.values()) {
+            ThreadPoolExecutor executor = stageExecutors.get(stage);
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    //queue of the stage is full : the thread handing over the task runs it, unless the pipeline is shut down
+    private static RejectedExecutionHandler runOnCaller() {
+        return (task, executor) -> {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("Checkout pipeline is shut down");
+            }
+            task.run();
+        };
+    }
+
+    //daemon threads, so a pending checkout does not keep the JVM alive
+    private static ThreadFactory threadFactory(CheckoutStage stage) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "checkout-" + stage.name().toLowerCase() + "-"
+                    + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,220 @@
+package LowLevelDesign.DesignOrderManagementSystem;
+
+import LowLevelDesign.DesignDataStructures.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//request threads checking out orders against a payment provider taking PAYMENT_MILLIS, 1 in 10 payments declined
+//and 1 in 100 stuck for STUCK_PAYMENT_MILLIS, longer than the payment timeout of the pipeline
+//Order.checkout on the request thread vs handing the order to the CheckoutPipeline, then checks that no stock
+//or money is lost : every product is sold or still in the inventory, and only the confirmed orders keep their payment
+public class CheckoutPipelineBenchmark {
+
+    private static final int NO_OF_CATEGORIES = 10;
+    private static final int STOCK_PER_CATEGORY = 3000;
+    private static final int NO_OF_CHECKOUTS = 2000;
+    private static final int NO_OF_REQUEST_THREADS = 16;
+    private static final int PAYMENT_MILLIS = 20;
+    private static final int STUCK_PAYMENT_MILLIS = 400;
+    private static final int PAYMENT_TIMEOUT_MILLIS = 200;
+
+    //payment provider, counts the money taken and given back
+    static final class SlowPaymentMode implements PaymentMode {
+
+        final AtomicInteger paid = new AtomicInteger();
+        final AtomicInteger refunded = new AtomicInteger();
+
+        @Override
+        public boolean makePayment() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int outcome = random.nextInt(100);
+            try {
+                Thread.sleep(outcome == 0 ? STUCK_PAYMENT_MILLIS : PAYMENT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            if (outcome > 0 && outcome < 10) {
+                return false;
+            }
+            paid.incrementAndGet();
+            return true;
+        }
+
+        @Override
+        public boolean refund() {
+            refunded.incrementAndGet();
+            return true;
+        }
+    }
+
+    public static void main(String args[]) throws Exception {
+
+        System.out.printf("%d checkouts from %d request threads, payment %d ms%n", NO_OF_CHECKOUTS,
+                NO_OF_REQUEST_THREADS, PAYMENT_MILLIS);
+
+        List<Order> orders = createOrders();
+        SlowPaymentMode paymentMode = new SlowPaymentMode();
+        LatencyHistogram requestThreadTime = new LatencyHistogram();
+        long start = System.nanoTime();
+        runRequestThreads(orders, requestThreadTime, order -> {
+            order.checkout(paymentMode);
+        });
+        report("Order.checkout", System.nanoTime() - start, requestThreadTime);
+        check(orders, paymentMode);
+
+        orders = createOrders();
+        SlowPaymentMode pipelinePaymentMode = new SlowPaymentMode();
+        CheckoutPipeline checkoutPipeline = new CheckoutPipeline(benchmarkSettings());
+        List<CompletableFuture<Boolean>> checkouts = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            checkouts.add(null);
+        }
+        AtomicInteger rejected = new AtomicInteger();
+        requestThreadTime = new LatencyHistogram();
+        start = System.nanoTime();
+        runRequestThreads(orders, requestThreadTime, order -> {
+            //queue of the pipeline is full, the client backs off and tries again
+            CompletableFuture<Boolean> checkout = checkoutPipeline.checkout(order, pipelinePaymentMode);
+            while (checkout.isCompletedExceptionally()) {
+                rejected.incrementAndGet();
+                Thread.sleep(1);
+                checkout = checkoutPipeline.checkout(order, pipelinePaymentMode);
+            }
+            checkouts.set(order.orderId, checkout);
+        });
+        for (CompletableFuture<Boolean> checkout : checkouts) {
+            checkout.handle((result, error) -> result).join();
+        }
+        report("CheckoutPipeline", System.nanoTime() - start, requestThreadTime);
+        System.out.printf("  %d rejected by backpressure and tried again%n", rejected.get());
+        System.out.printf("  %-17s %9s %7s %9s %9s %9s %9s%n", "stage", "completed", "failed", "timed out",
+                "p50 ms", "p99 ms", "max ms");
+        for (CheckoutStage stage : CheckoutStage.values()) {
+            CheckoutPipeline.StageMetrics metrics = checkoutPipeline.getMetrics(stage);
+            System.out.printf("  %-17s %9d %7d %9d %9.2f %9.2f %9.2f%n", stage, metrics.getCompleted(),
+                    metrics.getFailed(), metrics.getTimedOut(), metrics.getLatencyAtPercentile(50) / 1e6,
+                    metrics.getLatencyAtPercentile(99) / 1e6, metrics.getMaxLatency() / 1e6);
+        }
+        //stuck payments finish after their timeout and are refunded
+        Thread.sleep(STUCK_PAYMENT_MILLIS);
+        checkoutPipeline.shutdown();
+        check(orders, pipelinePaymentMode);
+    }
+
+    interface RequestHandler {
+        void handle(Order order) throws InterruptedException;
+    }
+
+    //request threads take the orders in turn, the time every request holds its thread is recorded
+    private static void runRequestThreads(List<Order> orders, LatencyHistogram requestThreadTime,
+                                          RequestHandler requestHandler) throws InterruptedException {
+
+        AtomicInteger nextOrder = new AtomicInteger();
+        List<LatencyHistogram> histograms = new ArrayList<>();
+        Thread[] requestThreads = new Thread[NO_OF_REQUEST_THREADS];
+        for (int t = 0; t < requestThreads.length; t++) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histograms.add(histogram);
+            requestThreads[t] = new Thread(() -> {
+                for (int i = nextOrder.getAndIncrement(); i < orders.size(); i = nextOrder.getAndIncrement()) {
+                    long begin = System.nanoTime();
+                    try {
+                        requestHandler.handle(orders.get(i));
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    histogram.record(System.nanoTime() - begin);
+                }
+            });
+            requestThreads[t].start();
+        }
+        for (Thread requestThread : requestThreads) {
+            requestThread.join();
+        }
+        for (LatencyHistogram histogram : histograms) {
+            requestThreadTime.add(histogram);
+        }
+    }
+
+    private static void report(String name, long nanos, LatencyHistogram requestThreadTime) {
+        System.out.printf("%-17s : %6.0f checkouts/s, request thread held p50 %8.3f ms, p99 %8.3f ms%n", name,
+                NO_OF_CHECKOUTS / (nanos / 1e9), requestThreadTime.getValueAtPercentile(50) / 1e6,
+                requestThreadTime.getValueAtPercentile(99) / 1e6);
+    }
+
+    private static Map<CheckoutStage, CheckoutPipeline.StageSettings> benchmarkSettings() {
+        Map<CheckoutStage, CheckoutPipeline.StageSettings> settings = new EnumMap<>(CheckoutStage.class);
+        settings.put(CheckoutStage.RESERVE_STOCK, new CheckoutPipeline.StageSettings(2, 256, 500));
+        settings.put(CheckoutStage.AUTHORIZE_PAYMENT, new CheckoutPipeline.StageSettings(64, 256,
+                PAYMENT_TIMEOUT_MILLIS));
+        settings.put(CheckoutStage.CONFIRM, new CheckoutPipeline.StageSettings(2, 256, 0));
+        settings.put(CheckoutStage.INVOICE, new CheckoutPipeline.StageSettings(2, 256, 1000));
+        return settings;
+    }
+
+    //every order has its own user, ids are the positions in the list
+    private static List<Order> createOrders() {
+
+        Inventory inventory = new Inventory();
+        for (int id = 1; id <= NO_OF_CATEGORIES; id++) {
+            inventory.addCategory(id, "CATEGORY-" + id, 100);
+            for (int i = 0; i < STOCK_PER_CATEGORY; i++) {
+                inventory.addProduct(new Product(), id);
+            }
+        }
+        Warehouse warehouse = new Warehouse();
+        warehouse.inventory = inventory;
+
+        Random random = new Random(42);
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < NO_OF_CHECKOUTS; i++) {
+            User user = new User();
+            user.userId = i;
+            Map<Integer, Integer> items = new HashMap<>();
+            for (int line = 1 + random.nextInt(3); line > 0; line--) {
+                items.merge(1 + random.nextInt(NO_OF_CATEGORIES), 1 + random.nextInt(2), Integer::sum);
+            }
+            orders.add(new Order(i, user, warehouse, items));
+        }
+        return orders;
+    }
+
+    private static void check(List<Order> orders, SlowPaymentMode paymentMode) {
+
+        int[] sold = new int[NO_OF_CATEGORIES + 1];
+        int confirmed = 0;
+        for (Order order : orders) {
+            if (order.orderStatus == OrderStatus.UNDELIVERED) {
+                confirmed++;
+                for (Map.Entry<Integer, Integer> item : order.productCategoryAndCountMap.entrySet()) {
+                    sold[item.getKey()] += item.getValue();
+                }
+            }
+        }
+        Inventory inventory = orders.get(0).warehouse.inventory;
+        int bad = 0;
+        for (int id = 1; id <= NO_OF_CATEGORIES; id++) {
+            ProductCategory category = inventory.getProductCategoryFromID(id);
+            int expected = STOCK_PER_CATEGORY - sold[id];
+            if (category.products.size() != expected || category.availableCount.get() != expected) {
+                bad++;
+            }
+        }
+        int keptPayments = paymentMode.paid.get() - paymentMode.refunded.get();
+        System.out.printf("  %d confirmed, %d payments kept, %d refunded, %d categories with lost stock%n",
+                confirmed, keptPayments, paymentMode.refunded.get(), bad);
+        if (bad > 0 || keptPayments != confirmed) {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+    }
+}
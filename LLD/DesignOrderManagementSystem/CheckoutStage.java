@@ -0,0 +1,10 @@
+package LowLevelDesign.DesignOrderManagementSystem;
+
+//stages of the CheckoutPipeline, in the order an order goes through them
+public enum CheckoutStage {
+
+    RESERVE_STOCK,
+    AUTHORIZE_PAYMENT,
+    CONFIRM,
+    INVOICE;
+}
@@ -1,6 +1,9 @@
 package LowLevelDesign.DesignOrderManagementSystem;
 
+import LowLevelDesign.DesignDataStructures.IntIntOpenHashMap;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -9,16 +12,31 @@ public class Inventory {
     //category wise products storage
     List<ProductCategory> productCategoryList;
 
+    //productCategoryId -> index in productCategoryList, so a lookup is O(1) and not a scan of all the categories
+    IntIntOpenHashMap productCategoryIdVsIndex;
+
     Inventory(){
         productCategoryList = new ArrayList<>();
+        productCategoryIdVsIndex = new IntIntOpenHashMap();
     }
 
-    //add new category
+    //add new category, price in rupees and the default tax rate
     public void addCategory(int categoryId, String name, int price){
+        addCategory(categoryId, name, price * 100L, ProductCategory.DEFAULT_TAX_BASIS_POINTS);
+    }
+
+    //price in paise, tax rate in basis points, ex: 1800 for 18%
+    public void addCategory(int categoryId, String name, long pricePaise, int taxBasisPoints){
         ProductCategory productCategory = new ProductCategory();
-        productCategory.price = price;
+        productCategory.pricePaise = pricePaise;
+        productCategory.taxBasisPoints = taxBasisPoints;
         productCategory.categoryName = name;
         productCategory.productCategoryId = categoryId;
+
+        //same id added again : lookups keep returning the first category, same as the earlier scan did
+        if(!productCategoryIdVsIndex.containsKey(categoryId)) {
+            productCategoryIdVsIndex.put(categoryId, productCategoryList.size());
+        }
         productCategoryList.add(productCategory);
     }
 
@@ -27,39 +45,74 @@ public class Inventory {
     public void addProduct(Product product, int productCategoryId){
 
         //take out the respective productCategory Object
-        ProductCategory categoryObject = null;
-        for(ProductCategory category : productCategoryList)
-        {
-            if(category.productCategoryId == productCategoryId){
-                categoryObject = category;
-            }
-        }
+        ProductCategory categoryObject = getProductCategoryFromID(productCategoryId);
 
         if(categoryObject !=null) {
             categoryObject.addProduct(product);
         }
     }
 
-    //remove product from the category
-    public void removeItems(Map<Integer, Integer> productCategoryAndCountMap){
-
-        for(Map.Entry<Integer, Integer> entry : productCategoryAndCountMap.entrySet())
-        {
-            ProductCategory category = getProductCategoryFromID(entry.getKey());
-             category.removeProduct(entry.getValue());
-        }
+    //remove product from the category, all the lines or none of them
+    public boolean removeItems(Map<Integer, Integer> productCategoryAndCountMap){
 
+        StockReservation reservation = reserveItems(productCategoryAndCountMap);
+        return reservation != null && reservation.commit();
     }
 
-    private ProductCategory getProductCategoryFromID(int productCategoryId){
+    //reserve the stock of every line of the cart, or of none of them. returns null if any line is short
+    //lines are reserved in ascending category id order with CAS, on a short line the ones reserved so far are given back
+    //categories are expected to be added before the checkouts start, only the stock is safe to change concurrently
+    public StockReservation reserveItems(Map<Integer, Integer> productCategoryAndCountMap){
 
-        for(ProductCategory productCategory : productCategoryList){
+        int[] categoryIds = new int[productCategoryAndCountMap.size()];
+        int lines = 0;
+        for(Map.Entry<Integer, Integer> entry : productCategoryAndCountMap.entrySet()){
+            if(entry.getValue() < 0){
+                throw new IllegalArgumentException("Invalid count " + entry.getValue() + " for category " + entry.getKey());
+            }
+            if(entry.getValue() > 0){
+                categoryIds[lines++] = entry.getKey();
+            }
+        }
+        categoryIds = Arrays.copyOf(categoryIds, lines);
+        Arrays.sort(categoryIds);
+
+        ProductCategory[] categories = new ProductCategory[lines];
+        int[] counts = new int[lines];
+        for(int i = 0; i < lines; i++){
+            categories[i] = getProductCategoryFromID(categoryIds[i]);
+            counts[i] = productCategoryAndCountMap.get(categoryIds[i]);
+            if(categories[i] == null || !categories[i].tryReserve(counts[i])){
+                for(int j = 0; j < i; j++){
+                    categories[j].availableCount.addAndGet(counts[j]);
+                }
+                return null;
+            }
+        }
+        return new StockReservation(categories, counts);
+    }
+
+    //true if every line of the cart is available right now, the stock can still be taken before reserveItems
+    public boolean hasStock(Map<Integer, Integer> productCategoryAndCountMap){
 
-            if(productCategory.productCategoryId == productCategoryId){
-                return productCategory;
+        for(Map.Entry<Integer, Integer> entry : productCategoryAndCountMap.entrySet()){
+            ProductCategory category = getProductCategoryFromID(entry.getKey());
+            if(category == null || category.availableCount.get() < entry.getValue()){
+                return false;
             }
         }
+        return true;
+    }
+
+    //not reserved stock of the category, 0 for an unknown category
+    public int getAvailableCount(int productCategoryId){
+        ProductCategory category = getProductCategoryFromID(productCategoryId);
+        return category == null ? 0 : category.availableCount.get();
+    }
+
+    ProductCategory getProductCategoryFromID(int productCategoryId){
 
-        return null;
+        int index = productCategoryIdVsIndex.getOrDefault(productCategoryId, -1);
+        return index < 0 ? null : productCategoryList.get(index);
     }
 }
@@ -0,0 +1,84 @@
+package LowLevelDesign.DesignOrderManagementSystem;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+//Inventory.removeItems for a 50 line cart on a 100k category catalogue
+//indexed lookup vs the earlier scan of productCategoryList per cart line
+//every removal is followed by putting the same products back, so the stock stays the same across iterations
+public class InventoryBenchmark {
+
+    private static final int NO_OF_CATEGORIES = 100_000;
+    private static final int CART_LINES = 50;
+    private static final int NO_OF_CHECKOUTS = 2000;
+
+    static long blackhole;
+
+    public static void main(String args[]) {
+
+        Inventory inventory = new Inventory();
+        for (int id = 0; id < NO_OF_CATEGORIES; id++) {
+            //ids are not dense, like real catalogue ids
+            inventory.addCategory(id * 7 + 1000, "CATEGORY-" + id, 100);
+        }
+
+        Random random = new Random(42);
+        Map<Integer, Integer> cart = new HashMap<>();
+        while (cart.size() < CART_LINES) {
+            int categoryId = random.nextInt(NO_OF_CATEGORIES) * 7 + 1000;
+            cart.put(categoryId, 1 + random.nextInt(3));
+        }
+        for (Map.Entry<Integer, Integer> line : cart.entrySet()) {
+            for (int i = 0; i < 10; i++) {
+                Product product = new Product();
+                product.productId = i;
+                inventory.addProduct(product, line.getKey());
+            }
+        }
+
+        //first rounds warm up the JIT
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int checkout = 0; checkout < NO_OF_CHECKOUTS; checkout++) {
+                inventory.removeItems(cart);
+                restock(inventory, cart);
+            }
+            long indexNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int checkout = 0; checkout < NO_OF_CHECKOUTS / 20; checkout++) {
+                scanRemoveItems(inventory.productCategoryList, cart);
+                restock(inventory, cart);
+            }
+            long scanNanos = (System.nanoTime() - start) * 20;
+
+            System.out.printf("round %d  scan : %8.1f us/removeItems   index : %6.2f us/removeItems%n",
+                    round, scanNanos / 1000.0 / NO_OF_CHECKOUTS, indexNanos / 1000.0 / NO_OF_CHECKOUTS);
+        }
+    }
+
+    private static void restock(Inventory inventory, Map<Integer, Integer> cart) {
+        for (Map.Entry<Integer, Integer> line : cart.entrySet()) {
+            ProductCategory category = inventory.getProductCategoryFromID(line.getKey());
+            for (int i = 0; i < line.getValue(); i++) {
+                Product product = new Product();
+                category.addProduct(product);
+            }
+            blackhole += category.products.size();
+        }
+    }
+
+    //earlier Inventory.removeItems, kept here as the baseline
+    private static void scanRemoveItems(List<ProductCategory> productCategoryList, Map<Integer, Integer> cart) {
+        for (Map.Entry<Integer, Integer> entry : cart.entrySet()) {
+            for (ProductCategory productCategory : productCategoryList) {
+                if (productCategory.productCategoryId == entry.getKey()) {
+                    productCategory.removeProduct(entry.getValue());
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -1,17 +1,44 @@
 package LowLevelDesign.DesignOrderManagementSystem;
 
+import java.util.Map;
+
+//all amounts in paise
 public class Invoice {
 
-    int totalItemPrice;
-    int totalTax;
-    int totalFinalPrice;
+    long totalItemPrice;
+    long totalTax;
+    long totalFinalPrice;
 
     //generate Invoice
     public void generateInvoice(Order order){
 
-        //it will compute and update the above details
-        totalItemPrice = 200;
-        totalTax = 20;
-        totalFinalPrice = 220;
+        clear();
+        //order without a warehouse, ex: read back from the OrderSegmentStore, has no prices
+        if(order.warehouse == null){
+            return;
+        }
+        for(Map.Entry<Integer, Integer> item : order.productCategoryAndCountMap.entrySet()){
+            ProductCategory category = order.warehouse.inventory.getProductCategoryFromID(item.getKey());
+            //not sold by this warehouse, the checkout of the order fails on it anyway
+            if(category == null){
+                continue;
+            }
+            addLine(category.pricePaise, item.getValue(), category.taxBasisPoints);
+        }
+    }
+
+    void clear(){
+        totalItemPrice = 0;
+        totalTax = 0;
+        totalFinalPrice = 0;
+    }
+
+    //tax of every line is rounded half up to the paisa
+    void addLine(long unitPricePaise, int count, int taxBasisPoints){
+        long linePrice = unitPricePaise * count;
+        long lineTax = (linePrice * taxBasisPoints + 5_000) / 10_000;
+        totalItemPrice += linePrice;
+        totalTax += lineTax;
+        totalFinalPrice += linePrice + lineTax;
     }
 }
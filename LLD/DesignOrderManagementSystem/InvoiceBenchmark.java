@@ -0,0 +1,94 @@
+package LowLevelDesign.DesignOrderManagementSystem;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+//invoices per second for a sales event, 1M orders of 1 to 5 lines over 2000 categories with GST like tax slabs
+//BigDecimal per line vs Invoice.generateInvoice per order vs InvoiceEngine in batches of BATCH_SIZE orders,
+//the totals of the engine must match the BigDecimal ones to the paisa. target is 100k orders per second
+public class InvoiceBenchmark {
+
+    private static final int NO_OF_CATEGORIES = 2000;
+    private static final int NO_OF_ORDERS = 1_000_000;
+    private static final int BATCH_SIZE = 10_000;
+    private static final int[] TAX_SLABS = {0, 500, 1200, 1800, 2800};
+
+    static long blackhole;
+
+    public static void main(String args[]) {
+
+        Inventory inventory = new Inventory();
+        Random random = new Random(42);
+        for (int id = 1; id <= NO_OF_CATEGORIES; id++) {
+            inventory.addCategory(id, "CATEGORY-" + id, 100 + random.nextInt(500_000),
+                    TAX_SLABS[random.nextInt(TAX_SLABS.length)]);
+        }
+        Warehouse warehouse = new Warehouse();
+        warehouse.inventory = inventory;
+        User user = new User();
+
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < NO_OF_ORDERS; i++) {
+            Map<Integer, Integer> items = new HashMap<>();
+            for (int line = 1 + random.nextInt(5); line > 0; line--) {
+                items.merge(1 + random.nextInt(NO_OF_CATEGORIES), 1 + random.nextInt(5), Integer::sum);
+            }
+            orders.add(new Order(i, user, warehouse, items));
+        }
+
+        long[] expectedFinalPrice = new long[NO_OF_ORDERS];
+        InvoiceEngine invoiceEngine = new InvoiceEngine(inventory);
+
+        //first rounds warm up the JIT
+        for (int round = 0; round < 3; round++) {
+
+            long start = System.nanoTime();
+            for (int i = 0; i < NO_OF_ORDERS; i++) {
+                expectedFinalPrice[i] = bigDecimalFinalPrice(orders.get(i), inventory);
+            }
+            long bigDecimalNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (Order order : orders) {
+                order.generateOrderInvoice();
+                blackhole += order.invoice.totalFinalPrice;
+            }
+            long invoiceNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int from = 0; from < NO_OF_ORDERS; from += BATCH_SIZE) {
+                invoiceEngine.generateInvoices(orders.subList(from, Math.min(from + BATCH_SIZE, NO_OF_ORDERS)));
+            }
+            long engineNanos = System.nanoTime() - start;
+
+            int mismatches = 0;
+            for (int i = 0; i < NO_OF_ORDERS; i++) {
+                if (orders.get(i).invoice.totalFinalPrice != expectedFinalPrice[i]) {
+                    mismatches++;
+                }
+            }
+            System.out.printf("round %d  BigDecimal : %6.2f M orders/s   Invoice : %6.2f M orders/s   "
+                            + "InvoiceEngine : %6.2f M orders/s   %d mismatches%n", round,
+                    NO_OF_ORDERS / (bigDecimalNanos / 1e3), NO_OF_ORDERS / (invoiceNanos / 1e3),
+                    NO_OF_ORDERS / (engineNanos / 1e3), mismatches);
+        }
+    }
+
+    //reference : rupees as BigDecimal, tax of every line rounded half up to the paisa
+    private static long bigDecimalFinalPrice(Order order, Inventory inventory) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Map.Entry<Integer, Integer> item : order.productCategoryAndCountMap.entrySet()) {
+            ProductCategory category = inventory.getProductCategoryFromID(item.getKey());
+            BigDecimal linePrice = BigDecimal.valueOf(category.pricePaise, 2).multiply(BigDecimal.valueOf(item.getValue()));
+            BigDecimal lineTax = linePrice.multiply(BigDecimal.valueOf(category.taxBasisPoints, 4))
+                    .setScale(2, RoundingMode.HALF_UP);
+            total = total.add(linePrice).add(lineTax);
+        }
+        return total.movePointRight(2).longValueExact();
+    }
+}
@@ -0,0 +1,60 @@
+package LowLevelDesign.DesignOrderManagementSystem;
+
+import LowLevelDesign.DesignDataStructures.IntIntOpenHashMap;
+
+import java.util.List;
+import java.util.Map;
+
+//invoices many orders of one warehouse in one pass, for sales events when invoicing is on the hot path
+//price and tax rate of every category are copied once into primitive arrays, so a line is one open addressing
+//lookup and a few long multiplications in paise, with no BigDecimal, boxing or category object per line
+//the arrays are a snapshot of the inventory, a new engine is built when prices or tax rates change
+public class InvoiceEngine {
+
+    final Inventory inventory;
+    final IntIntOpenHashMap categoryIdVsIndex;
+    final long[] unitPricePaise;
+    final int[] taxBasisPoints;
+
+    InvoiceEngine(Inventory inventory){
+        this.inventory = inventory;
+        List<ProductCategory> categories = inventory.productCategoryList;
+        categoryIdVsIndex = new IntIntOpenHashMap(categories.size());
+        unitPricePaise = new long[categories.size()];
+        taxBasisPoints = new int[categories.size()];
+        for(int i = 0; i < categories.size(); i++){
+            ProductCategory category = categories.get(i);
+            unitPricePaise[i] = category.pricePaise;
+            taxBasisPoints[i] = category.taxBasisPoints;
+            //same id added again : the first category wins, as in Inventory
+            if(!categoryIdVsIndex.containsKey(category.productCategoryId)){
+                categoryIdVsIndex.put(category.productCategoryId, i);
+            }
+        }
+    }
+
+    //only the orders of a warehouse with this inventory are invoiced, the others are skipped and keep their invoice
+    //totals are the same as Invoice.generateInvoice as long as the prices and tax rates have not changed since
+    //the engine was built. returns the no of orders invoiced
+    public int generateInvoices(List<Order> orders){
+        int invoiced = 0;
+        for(Order order : orders){
+            if(order.warehouse == null || order.warehouse.inventory != inventory){
+                continue;
+            }
+            if(order.invoice == null){
+                order.invoice = new Invoice();
+            }
+            Invoice invoice = order.invoice;
+            invoice.clear();
+            for(Map.Entry<Integer, Integer> item : order.productCategoryAndCountMap.entrySet()){
+                int index = categoryIdVsIndex.getOrDefault(item.getKey(), -1);
+                if(index >= 0){
+                    invoice.addLine(unitPricePaise[index], item.getValue(), taxBasisPoints[index]);
+                }
+            }
+            invoiced++;
+        }
+        return invoiced;
+    }
+}
@@ -54,6 +54,7 @@ public class Main {
         inventory.addProduct(product3, 0004);
 
         warehouse.inventory = inventory;
+        warehouse.address = new Address(226010, "city", "state", 26.85, 80.95);
         return warehouse;
     }
 
@@ -62,7 +63,7 @@ public class Main {
         User user = new User();
         user.userId = 1;
         user.userName = "SJ";
-        user.address = new Address(230011, "city", "state");
+        user.address = new Address(230011, "city", "state", 26.80, 81.02);
         return user;
     }
 
@@ -73,7 +74,7 @@ public class Main {
         User user = productDeliverySystem.getUser(userId);
 
         //2. get warehouse based on user preference
-       Warehouse warehouse = productDeliverySystem.getWarehouse(new NearestWarehouseSelectionStrategy());
+       Warehouse warehouse = productDeliverySystem.getWarehouse(new NearestWarehouseSelectionStrategy(user.address));
 
         //3. get all the inventory to show the user
         Inventory inventory = productDeliverySystem.getInventory(warehouse);
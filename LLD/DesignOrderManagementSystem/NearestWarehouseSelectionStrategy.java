@@ -1,14 +1,54 @@
 package LowLevelDesign.DesignOrderManagementSystem;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
+//nearest warehouse to the delivery address which has every item of the cart in stock
+//uses the WarehouseController's WarehouseIndex, a plain list is searched with a haversine scan
 public class NearestWarehouseSelectionStrategy extends WarehouseSelectionStrategy{
 
+    Address deliveryAddress;
+    //empty cart means any warehouse will do
+    Map<Integer, Integer> cartItems;
+
+    NearestWarehouseSelectionStrategy(Address deliveryAddress){
+        this(deliveryAddress, Collections.emptyMap());
+    }
+
+    NearestWarehouseSelectionStrategy(Address deliveryAddress, Map<Integer, Integer> cartItems){
+        this.deliveryAddress = deliveryAddress;
+        this.cartItems = cartItems;
+    }
+
     @Override
     public Warehouse selectWarehouse(List<Warehouse> warehouseList) {
-       //algo to pick the nearest algo, for now I am just picking the first warehouse for demo purpose
-        return warehouseList.get(0);
+
+        Warehouse nearestWarehouse = null;
+        double nearestDistanceKm = Double.MAX_VALUE;
+        for(Warehouse warehouse : warehouseList){
+            if(warehouse.address == null || !warehouse.hasStock(cartItems)){
+                continue;
+            }
+            double distanceKm = WarehouseIndex.haversineKm(deliveryAddress.latitude, deliveryAddress.longitude,
+                    warehouse.address.latitude, warehouse.address.longitude);
+            if(distanceKm < nearestDistanceKm){
+                nearestDistanceKm = distanceKm;
+                nearestWarehouse = warehouse;
+            }
+        }
+        return nearestWarehouse;
     }
 
+    @Override
+    public Warehouse selectWarehouse(List<Warehouse> warehouseList, WarehouseIndex warehouseIndex) {
+        List<Warehouse> nearestWarehouses = selectNearestWarehouses(warehouseIndex, 1);
+        return nearestWarehouses.isEmpty() ? null : nearestWarehouses.get(0);
+    }
 
+    //k nearest warehouses with the cart in stock, nearest first, ex: to fall back when the first one runs out
+    public List<Warehouse> selectNearestWarehouses(WarehouseIndex warehouseIndex, int k) {
+        return warehouseIndex.findNearest(deliveryAddress.latitude, deliveryAddress.longitude, k,
+                warehouse -> warehouse.hasStock(cartItems));
+    }
 }
@@ -4,6 +4,8 @@ import java.util.Map;
 
 public class Order {
 
+    int orderId;
+    int userId;
     User user;
     Address deliveryAddress;
     Map<Integer, Integer> productCategoryAndCountMap;
@@ -12,31 +14,87 @@ public class Order {
     Payment payment;
     OrderStatus orderStatus;
 
-    Order(User user, Warehouse warehouse){
+    //order for a part of the cart, ex: one SubOrder of a split shipment
+    Order(int orderId, User user, Warehouse warehouse, Map<Integer, Integer> productCategoryAndCountMap){
+      this.orderId = orderId;
+      this.userId = user.userId;
       this.user = user;
-      this.productCategoryAndCountMap = user.getUserCart().getCartItems();
+      this.productCategoryAndCountMap = productCategoryAndCountMap;
       this.warehouse = warehouse;
       this.deliveryAddress = user.address;
       invoice = new Invoice();
       invoice.generateInvoice(this);
     }
 
-    public void checkout(){
+    //order read back from the OrderSegmentStore, it has only the ids, items and status
+    Order(int orderId, int userId, Map<Integer, Integer> productCategoryAndCountMap, OrderStatus orderStatus){
+      this.orderId = orderId;
+      this.userId = userId;
+      this.productCategoryAndCountMap = productCategoryAndCountMap;
+      this.orderStatus = orderStatus;
+    }
+
+    public int getOrderId(){
+        return orderId;
+    }
+
+    public int getUserId(){
+        return userId;
+    }
+
+    public OrderStatus getOrderStatus(){
+        return orderStatus;
+    }
+
+    //false if any item is out of stock or the payment failed, the stock is then untouched
+    public boolean checkout(){
+        return checkout(new UPIPaymentMode());
+    }
 
-        //1. update inventory
-        warehouse.removeItemFromInventory(productCategoryAndCountMap);
+    public boolean checkout(PaymentMode paymentMode){
+
+        //1. reserve the items, so no other checkout can take them while we pay
+        StockReservation reservation = reserveItems();
+        if(reservation == null) {
+            orderStatus = OrderStatus.CANCELLED;
+            return false;
+        }
 
         //2. make Payment
-        boolean isPaymentSuccess = makePayment(new UPIPaymentMode());
+        boolean isPaymentSuccess = makePayment(paymentMode);
 
-        //3. make cart empty
+        //3. take the items out of the inventory and make cart empty, or give the items back
         if(isPaymentSuccess) {
-            user.getUserCart().emptyCart();
+            confirm(reservation);
         }
         else{
-            warehouse.addItemToInventory(productCategoryAndCountMap);
+            cancel(reservation);
         }
+        return isPaymentSuccess;
+    }
+
+    //null if any item is out of stock
+    StockReservation reserveItems(){
+        return warehouse.reserveItems(productCategoryAndCountMap);
+    }
 
+    //false if the reservation was already committed or released
+    boolean confirm(StockReservation reservation){
+        if(!reservation.commit()){
+            return false;
+        }
+        orderStatus = OrderStatus.UNDELIVERED;
+        user.getUserCart().emptyCart();
+        return true;
+    }
+
+    //false if the reservation was already committed, the order then stays confirmed
+    boolean cancel(StockReservation reservation){
+        if(!reservation.release()){
+            return false;
+        }
+        orderStatus = OrderStatus.CANCELLED;
+        return true;
     }
 
     public boolean makePayment(PaymentMode paymentMode){
@@ -1,51 +1,150 @@
 package LowLevelDesign.DesignOrderManagementSystem;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
+//orders by id and the recent orders of every user
+//only the newest maxOrdersInMemory orders stay in the heap, past that the oldest SPILL_BATCH orders are moved
+//to the OrderSegmentStore in one write, and are read back from it when looked up by id
 public class OrderController {
 
-    List<Order> orderList;
-    Map<Integer, List<Order>> userIDVsOrders;
+    private static final int SPILL_BATCH = 1024;
+
+    final OrderIdGenerator orderIdGenerator;
+    final Map<Integer, Order> orderIdVsOrder;
+    final Map<Integer, UserOrderHistory> userIDVsOrders;
+    //orders in the heap oldest first, the spill order. only kept when there is a store to spill to
+    final Queue<Order> ordersInMemory;
+    final AtomicInteger noOfOrdersInMemory;
+    final int maxOrdersInMemory;
+    //null keeps every order in the heap
+    final OrderSegmentStore orderSegmentStore;
+    final Object spillLock = new Object();
 
     OrderController(){
-        orderList = new ArrayList<>();
-        userIDVsOrders = new HashMap<>();
+        this(Integer.MAX_VALUE, null);
+    }
+
+    OrderController(int maxOrdersInMemory, OrderSegmentStore orderSegmentStore){
+        this.orderIdGenerator = new OrderIdGenerator();
+        this.orderIdVsOrder = new ConcurrentHashMap<>();
+        this.userIDVsOrders = new ConcurrentHashMap<>();
+        this.ordersInMemory = new ConcurrentLinkedQueue<>();
+        this.noOfOrdersInMemory = new AtomicInteger();
+        this.maxOrdersInMemory = maxOrdersInMemory;
+        this.orderSegmentStore = orderSegmentStore;
     }
 
     //create New Order
     public Order createNewOrder(User user, Warehouse warehouse){
-        Order order = new Order(user, warehouse);
-        orderList.add(order);
+        return createNewOrder(user, warehouse, user.getUserCart().getCartItems());
+    }
 
-        if(userIDVsOrders.containsKey(user.userId)){
-            List<Order> userOrders = userIDVsOrders.get(user.userId);
-            userOrders.add(order);
-            userIDVsOrders.put(user.userId, userOrders);
-        } else {
-            List<Order> userOrders = new ArrayList<>();
-            userOrders.add(order);
-            userIDVsOrders.put(user.userId, userOrders);
+    //create New Order for a part of the cart
+    public Order createNewOrder(User user, Warehouse warehouse, Map<Integer, Integer> productCategoryAndCountMap){
+        Order order = new Order(orderIdGenerator.nextId(), user, warehouse, productCategoryAndCountMap);
+        orderIdVsOrder.put(order.orderId, order);
+        if(orderSegmentStore != null){
+            ordersInMemory.add(order);
+        }
+        userIDVsOrders.computeIfAbsent(user.userId, userId -> new UserOrderHistory()).add(order.orderId);
 
+        if(noOfOrdersInMemory.incrementAndGet() > maxOrdersInMemory && orderSegmentStore != null){
+            spillOldOrders();
         }
         return order;
     }
 
+    //an order already moved to the OrderSegmentStore can not be removed, false then
+    public boolean removeOrder(Order order){
 
-    //remove order
-    public void removeOrder(Order order){
-
-        //remove order capability goes here
+        synchronized (spillLock){
+            if(!orderIdVsOrder.remove(order.orderId, order)){
+                return false;
+            }
+            noOfOrdersInMemory.decrementAndGet();
+        }
+        //removing is rare (cancel before checkout), a scan of the queue is fine for it
+        if(orderSegmentStore != null){
+            ordersInMemory.remove(order);
+        }
+        UserOrderHistory userOrderHistory = userIDVsOrders.get(order.userId);
+        if(userOrderHistory != null){
+            userOrderHistory.remove(order.orderId);
+        }
+        return true;
     }
 
+    //last UserOrderHistory.MAX_RECENT_ORDERS orders of the user, newest first
     public List<Order> getOrderByCustomerId(int userId){
-        return null;
+        List<Order> orders = new ArrayList<>();
+        UserOrderHistory userOrderHistory = userIDVsOrders.get(userId);
+        if(userOrderHistory == null){
+            return orders;
+        }
+        for(int orderId : userOrderHistory.getRecentOrderIds()){
+            Order order = getOrderByOrderId(orderId);
+            if(order != null){
+                orders.add(order);
+            }
+        }
+        return orders;
     }
 
+    //null if there is no such order
     public Order getOrderByOrderId(int orderId){
-        return null;
+        Order order = orderIdVsOrder.get(orderId);
+        if(order != null || orderSegmentStore == null){
+            return order;
+        }
+        try {
+            return orderSegmentStore.get(orderId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Order store read failed", e);
+        }
     }
 
+    //an order is written to the store before it leaves the heap, so a lookup always finds it in one of them
+    private void spillOldOrders(){
+
+        int target = Math.max(0, maxOrdersInMemory - SPILL_BATCH);
+        synchronized (spillLock){
+            if(noOfOrdersInMemory.get() <= maxOrdersInMemory){
+                return;
+            }
+            while(noOfOrdersInMemory.get() > target){
+                List<Order> batch = new ArrayList<>();
+                while(batch.size() < SPILL_BATCH && noOfOrdersInMemory.get() - batch.size() > target){
+                    Order order = ordersInMemory.poll();
+                    if(order == null){
+                        break;
+                    }
+                    if(orderIdVsOrder.get(order.orderId) == order){
+                        batch.add(order);
+                    }
+                }
+                if(batch.isEmpty()){
+                    return;
+                }
+                try {
+                    orderSegmentStore.append(batch);
+                } catch (IOException e) {
+                    //the polled orders stay in the heap and go back to the queue, to be spilled later
+                    ordersInMemory.addAll(batch);
+                    throw new UncheckedIOException("Order store write failed", e);
+                }
+                for(Order order : batch){
+                    orderIdVsOrder.remove(order.orderId);
+                }
+                noOfOrdersInMemory.addAndGet(-batch.size());
+            }
+        }
+    }
 }
@@ -0,0 +1,123 @@
+package LowLevelDesign.DesignOrderManagementSystem;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+//heap used by the OrderController as orders keep coming in, all orders in the heap vs old orders spilled to the
+//OrderSegmentStore, then checks the spilled orders read back by id and per user, also after reopening the store
+public class OrderHistoryBenchmark {
+
+    private static final int NO_OF_ORDERS = 2_000_000;
+    private static final int NO_OF_USERS = 100_000;
+    private static final int MAX_ORDERS_IN_MEMORY = 50_000;
+    private static final int ORDERS_PER_SEGMENT = 65_536;
+    private static final int REPORT_EVERY = 500_000;
+
+    public static void main(String args[]) throws Exception {
+
+        List<User> users = createUsers();
+
+        System.out.println("all orders in the heap");
+        placeOrders(new OrderController(), users);
+
+        Path directory = Files.createTempDirectory("order-segments");
+        System.out.println("spilling to " + directory);
+        OrderController orderController;
+        try (OrderSegmentStore store = OrderSegmentStore.open(directory, ORDERS_PER_SEGMENT)) {
+            orderController = new OrderController(MAX_ORDERS_IN_MEMORY, store);
+            placeOrders(orderController, users);
+            System.out.printf("%d orders in the store%n", store.size());
+
+            check(orderController, users);
+
+            Random random = new Random(7);
+            long start = System.nanoTime();
+            int lookups = 10_000;
+            for (int i = 0; i < lookups; i++) {
+                orderController.getOrderByOrderId(1 + random.nextInt(NO_OF_ORDERS));
+            }
+            System.out.printf("order by id    : %6.1f us per lookup%n", (System.nanoTime() - start) / 1000.0 / lookups);
+            start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                orderController.getOrderByCustomerId(random.nextInt(NO_OF_USERS));
+            }
+            System.out.printf("last 20 orders : %6.1f us per user%n", (System.nanoTime() - start) / 1000.0 / lookups);
+        }
+
+        //every spilled order is found again after a restart
+        try (OrderSegmentStore store = OrderSegmentStore.open(directory, ORDERS_PER_SEGMENT)) {
+            int missing = 0;
+            for (int orderId = 1; orderId <= NO_OF_ORDERS - MAX_ORDERS_IN_MEMORY; orderId += 997) {
+                if (store.get(orderId) == null) {
+                    missing++;
+                }
+            }
+            System.out.printf("reopened store : %d orders, %d missing%n", store.size(), missing);
+        }
+    }
+
+    private static void placeOrders(OrderController orderController, List<User> users) {
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        for (int i = 1; i <= NO_OF_ORDERS; i++) {
+            User user = users.get(random.nextInt(users.size()));
+            Map<Integer, Integer> items = new HashMap<>();
+            for (int item = 1 + random.nextInt(3); item > 0; item--) {
+                items.put(random.nextInt(500), 1 + random.nextInt(3));
+            }
+            orderController.createNewOrder(user, null, items);
+            if (i % REPORT_EVERY == 0) {
+                System.out.printf("  %8d orders : %5d MB heap used%n", i, usedHeapMb());
+            }
+        }
+        System.out.printf("  %.0f ns per order%n", (System.nanoTime() - start) / (double) NO_OF_ORDERS);
+    }
+
+    private static void check(OrderController orderController, List<User> users) {
+
+        //ids come from one thread here, so they are in the order the orders were placed
+        int bad = 0;
+        for (User user : users) {
+            List<Order> orders = orderController.getOrderByCustomerId(user.userId);
+            for (int i = 0; i < orders.size(); i++) {
+                if (orders.get(i).userId != user.userId || (i > 0 && orders.get(i).orderId >= orders.get(i - 1).orderId)) {
+                    bad++;
+                }
+            }
+        }
+
+        Order newest = orderController.createNewOrder(users.get(0), null, new HashMap<>(Map.of(1, 1)));
+        if (orderController.getOrderByCustomerId(users.get(0).userId).get(0) != newest
+                || !orderController.removeOrder(newest) || orderController.getOrderByOrderId(newest.orderId) != null
+                || orderController.getOrderByCustomerId(users.get(0).userId).contains(newest)) {
+            bad++;
+        }
+        Order oldest = orderController.getOrderByOrderId(1);
+        if (oldest == null || orderController.removeOrder(oldest)) {
+            bad++;
+        }
+        System.out.printf("check : %d bad%n", bad);
+    }
+
+    private static List<User> createUsers() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < NO_OF_USERS; i++) {
+            User user = new User();
+            user.userId = i;
+            users.add(user);
+        }
+        return users;
+    }
+
+    private static long usedHeapMb() {
+        System.gc();
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+    }
+}
@@ -0,0 +1,33 @@
+package LowLevelDesign.DesignOrderManagementSystem;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+//order ids, unique and increasing per thread
+//every thread takes a block of BLOCK_SIZE ids from the shared counter and hands them out by itself,
+//so threads placing orders touch the shared counter once every BLOCK_SIZE orders instead of on every order
+//
+//ids are not increasing across threads : a thread still handing out an old block gives a lower id than another
+//thread gave just before. nothing orders by id across threads, the history of a user keeps the orders in the
+//order they were placed and the segment store looks an id up in every segment whose id range has it
+public class OrderIdGenerator {
+
+    private static final int BLOCK_SIZE = 64;
+
+    //a long, so taking blocks past the last int id does not wrap around to ids given out already
+    final AtomicLong nextBlockStart = new AtomicLong(1);
+    //{next id, end of the block} of the calling thread
+    final ThreadLocal<int[]> threadBlock = ThreadLocal.withInitial(() -> new int[2]);
+
+    public int nextId(){
+        int[] block = threadBlock.get();
+        if(block[0] == block[1]){
+            long blockStart = nextBlockStart.getAndAdd(BLOCK_SIZE);
+            if(blockStart + BLOCK_SIZE > Integer.MAX_VALUE){
+                throw new IllegalStateException("Order ids exhausted");
+            }
+            block[0] = (int) blockStart;
+            block[1] = (int) blockStart + BLOCK_SIZE;
+        }
+        return block[0]++;
+    }
+}
@@ -0,0 +1,388 @@
+package LowLevelDesign.DesignOrderManagementSystem;
+
+import LowLevelDesign.DesignDataStructures.IntIntOpenHashMap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+//on-disk store for the old orders, so the OrderController keeps only the recent ones in the heap
+//
+//segment : append only files orders-<sequence>.seg, every record is [length 4][crc32 4] and then the payload
+//          [orderId 4][userId 4][status 1][noOfItems 4][productCategoryId 4][count 4]..., same framing as BookingJournal
+//seal    : once a segment has ordersPerSegment orders its records are forced to the disk, then its id index is written
+//          at the end of it, [orderId 4][offset 8]... sorted by id, then [noOfOrders 4][SEGMENT_MAGIC 8], forced
+//          as well, and a new segment is started. so a sealed footer never reaches the disk before the records
+//lookup  : the heap keeps the highest id and every INDEX_BLOCK-th id of the index of every sealed segment, about
+//          INDEX_BLOCK times less than the index itself, so an id is found with one read of an index block and one
+//          of the record, in the segments whose range has it, which is one segment as ids mostly go up
+//
+//a segment without the index at open (crash before it was sealed) is read up to its last complete record with a
+//matching crc and sealed. a record read back with a wrong crc fails the read with an IOException
+public class OrderSegmentStore implements AutoCloseable {
+
+    private static final long SEGMENT_MAGIC = 0x4F4D534F72647232L; //"OMSOrdr2"
+    private static final int FRAME_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 13;
+    private static final int MAX_RECORD_SIZE = 1 << 24;
+    private static final int INDEX_ENTRY_SIZE = 12;
+    private static final int INDEX_BLOCK = 256;
+    private static final int FOOTER_SIZE = 12;
+    private static final int MAX_OPEN_SEGMENTS = 16;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    final Path directory;
+    final int ordersPerSegment;
+
+    //guarded by this
+    final List<SealedSegment> sealedSegments = new ArrayList<>();
+    FileChannel segment;
+    int segmentSequence;
+    //ids and offsets of the open segment, at most ordersPerSegment of them
+    int[] segmentOrderIds;
+    long[] segmentOffsets;
+    final IntIntOpenHashMap segmentOrderIdVsSlot;
+    int segmentSize;
+    long segmentEnd;
+    ByteBuffer pendingRecords = ByteBuffer.allocate(64 * 1024);
+    long noOfOrders;
+    final CRC32 appendCrc = new CRC32();
+    final Map<Path, FileChannel> openSegments = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, FileChannel> eldest) {
+            if (size() <= MAX_OPEN_SEGMENTS) {
+                return false;
+            }
+            try {
+                eldest.getValue().close();
+            } catch (IOException e) {
+                //read only channel, nothing is lost
+            }
+            return true;
+        }
+    };
+
+    private OrderSegmentStore(Path directory, int ordersPerSegment) {
+        this.directory = directory;
+        this.ordersPerSegment = ordersPerSegment;
+        this.segmentOrderIds = new int[ordersPerSegment];
+        this.segmentOffsets = new long[ordersPerSegment];
+        this.segmentOrderIdVsSlot = new IntIntOpenHashMap(ordersPerSegment);
+    }
+
+    public static OrderSegmentStore open(Path directory, int ordersPerSegment) throws IOException {
+
+        if (ordersPerSegment <= 0) {
+            throw new IllegalArgumentException("Illegal orders per segment: " + ordersPerSegment);
+        }
+        Files.createDirectories(directory);
+        OrderSegmentStore store = new OrderSegmentStore(directory, ordersPerSegment);
+        store.load();
+        return store;
+    }
+
+    //orders are written as they are now, later changes to them are not seen by the store
+    public synchronized void append(List<Order> orders) throws IOException {
+
+        for (Order order : orders) {
+            if (segmentSize == ordersPerSegment) {
+                flush();
+                seal();
+                startSegment(segmentSequence + 1);
+            }
+            int payloadSize = RECORD_HEADER_SIZE + 8 * order.productCategoryAndCountMap.size();
+            int recordSize = FRAME_HEADER_SIZE + payloadSize;
+            if (pendingRecords.remaining() < recordSize) {
+                flush();
+                if (pendingRecords.capacity() < recordSize) {
+                    pendingRecords = ByteBuffer.allocate(recordSize);
+                }
+            }
+            segmentOrderIds[segmentSize] = order.orderId;
+            segmentOffsets[segmentSize] = segmentEnd + pendingRecords.position();
+            segmentOrderIdVsSlot.put(order.orderId, segmentSize);
+            int start = pendingRecords.position();
+            pendingRecords.putInt(payloadSize).putInt(0);
+            pendingRecords.putInt(order.orderId).putInt(order.userId)
+                    .put((byte) (order.orderStatus == null ? -1 : order.orderStatus.ordinal()))
+                    .putInt(order.productCategoryAndCountMap.size());
+            for (Map.Entry<Integer, Integer> item : order.productCategoryAndCountMap.entrySet()) {
+                pendingRecords.putInt(item.getKey()).putInt(item.getValue());
+            }
+            appendCrc.reset();
+            appendCrc.update(pendingRecords.array(), start + FRAME_HEADER_SIZE, payloadSize);
+            pendingRecords.putInt(start + 4, (int) appendCrc.getValue());
+            segmentSize++;
+            noOfOrders++;
+        }
+        flush();
+    }
+
+    private void flush() throws IOException {
+        pendingRecords.flip();
+        while (pendingRecords.hasRemaining()) {
+            segmentEnd += segment.write(pendingRecords, segmentEnd);
+        }
+        pendingRecords.clear();
+    }
+
+    //null if the store does not have the order
+    public synchronized Order get(int orderId) throws IOException {
+
+        int slot = segmentOrderIdVsSlot.getOrDefault(orderId, -1);
+        if (slot >= 0) {
+            return readOrder(segment, segmentOffsets[slot]);
+        }
+        for (int s = sealedSegments.size() - 1; s >= 0; s--) {
+            SealedSegment sealed = sealedSegments.get(s);
+            if (orderId < sealed.blockFirstOrderIds[0] || orderId > sealed.maxOrderId) {
+                continue;
+            }
+            FileChannel channel = sealedChannel(sealed);
+            long offset = findOffset(channel, sealed, orderId);
+            if (offset >= 0) {
+                return readOrder(channel, offset);
+            }
+        }
+        return null;
+    }
+
+    //this held : the few most recently read segments are kept open, the others are closed
+    private FileChannel sealedChannel(SealedSegment sealed) throws IOException {
+        FileChannel channel = openSegments.get(sealed.file);
+        if (channel == null) {
+            channel = FileChannel.open(sealed.file, StandardOpenOption.READ);
+            openSegments.put(sealed.file, channel);
+        }
+        return channel;
+    }
+
+    public synchronized long size() {
+        return noOfOrders;
+    }
+
+    //binary search over the first ids of the index blocks and then inside the block, -1 if the id is not in it
+    private static long findOffset(FileChannel channel, SealedSegment sealed, int orderId) throws IOException {
+        int block = Arrays.binarySearch(sealed.blockFirstOrderIds, orderId);
+        if (block < 0) {
+            block = -block - 2;
+        }
+        int firstEntry = block * INDEX_BLOCK;
+        int noOfEntries = Math.min(INDEX_BLOCK, sealed.noOfOrders - firstEntry);
+        ByteBuffer entries = ByteBuffer.allocate(noOfEntries * INDEX_ENTRY_SIZE);
+        readFully(channel, entries, sealed.indexOffset + (long) firstEntry * INDEX_ENTRY_SIZE);
+        int low = 0;
+        int high = noOfEntries - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midOrderId = entries.getInt(mid * INDEX_ENTRY_SIZE);
+            if (midOrderId < orderId) {
+                low = mid + 1;
+            } else if (midOrderId > orderId) {
+                high = mid - 1;
+            } else {
+                return entries.getLong(mid * INDEX_ENTRY_SIZE + 4);
+            }
+        }
+        return -1;
+    }
+
+    private static Order readOrder(FileChannel channel, long offset) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+        readFully(channel, frame, offset);
+        int payloadSize = frame.getInt();
+        int expectedCrc = frame.getInt();
+        if (payloadSize < RECORD_HEADER_SIZE || payloadSize > MAX_RECORD_SIZE) {
+            throw new IOException("Corrupt order record at " + offset + ", length " + payloadSize);
+        }
+        ByteBuffer payload = ByteBuffer.allocate(payloadSize);
+        readFully(channel, payload, offset + FRAME_HEADER_SIZE);
+        if (crcOf(payload) != expectedCrc) {
+            throw new IOException("Order record checksum mismatch at " + offset);
+        }
+        int orderId = payload.getInt();
+        int userId = payload.getInt();
+        byte status = payload.get();
+        int noOfItems = payload.getInt();
+        Map<Integer, Integer> productCategoryAndCountMap = new HashMap<>();
+        for (int i = 0; i < noOfItems; i++) {
+            productCategoryAndCountMap.put(payload.getInt(), payload.getInt());
+        }
+        return new Order(orderId, userId, productCategoryAndCountMap, status < 0 ? null : STATUSES[status]);
+    }
+
+    private static int crcOf(ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.array(), 0, payload.limit());
+        return (int) crc.getValue();
+    }
+
+    //fills the buffer with the bytes at the position and flips it for reading
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of order segment at " + position);
+            }
+        }
+        buffer.flip();
+    }
+
+    //this held : writes the sorted id index at the end of the open segment, an empty segment is deleted
+    private void seal() throws IOException {
+
+        if (segmentSize == 0) {
+            segment.close();
+            segment = null;
+            Files.delete(segmentFile(segmentSequence));
+            return;
+        }
+
+        long[] idAndOffset = new long[segmentSize];
+        for (int i = 0; i < segmentSize; i++) {
+            //offsets stay below 2^32 for any sane segment size, so they share a long with the id
+            idAndOffset[i] = ((long) segmentOrderIds[i] << 32) | segmentOffsets[i];
+        }
+        Arrays.sort(idAndOffset);
+
+        //records first, a footer on the disk must not point at records which are not
+        segment.force(false);
+
+        long indexOffset = segmentEnd;
+        ByteBuffer index = ByteBuffer.allocate(segmentSize * INDEX_ENTRY_SIZE + FOOTER_SIZE);
+        for (long entry : idAndOffset) {
+            index.putInt((int) (entry >>> 32)).putLong(entry & 0xFFFFFFFFL);
+        }
+        index.putInt(segmentSize).putLong(SEGMENT_MAGIC);
+        index.flip();
+        while (index.hasRemaining()) {
+            segment.write(index, indexOffset + index.position());
+        }
+        segment.force(false);
+        segment.close();
+        segment = null;
+
+        sealedSegments.add(new SealedSegment(segmentFile(segmentSequence), index, segmentSize, indexOffset));
+        segmentOrderIdVsSlot.clear();
+        segmentSize = 0;
+    }
+
+    private void load() throws IOException {
+
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().matches("orders-\\d{10}\\.seg"))
+                    .sorted()
+                    .forEach(segments::add);
+        }
+        for (Path file : segments) {
+            segmentSequence = Integer.parseInt(file.getFileName().toString().substring(7, 17));
+            segment = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = segment.size();
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+            if (size >= FOOTER_SIZE) {
+                readFully(segment, footer, size - FOOTER_SIZE);
+            }
+            if (size >= FOOTER_SIZE && footer.getLong(4) == SEGMENT_MAGIC) {
+                int count = footer.getInt(0);
+                long indexOffset = size - FOOTER_SIZE - (long) count * INDEX_ENTRY_SIZE;
+                ByteBuffer index = ByteBuffer.allocate(count * INDEX_ENTRY_SIZE);
+                readFully(segment, index, indexOffset);
+                sealedSegments.add(new SealedSegment(file, index, count, indexOffset));
+                noOfOrders += count;
+                segment.close();
+                segment = null;
+            } else {
+                recoverSegment(size);
+                seal();
+            }
+        }
+        startSegment(segmentSequence + 1);
+    }
+
+    //reads the records of an unsealed segment into the open segment index, and cuts off a torn or corrupt tail
+    private void recoverSegment(long size) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+        long offset = 0;
+        while (offset + FRAME_HEADER_SIZE <= size && segmentSize < ordersPerSegment) {
+            readFully(segment, frame, offset);
+            int payloadSize = frame.getInt();
+            int expectedCrc = frame.getInt();
+            long end = offset + FRAME_HEADER_SIZE + payloadSize;
+            if (payloadSize < RECORD_HEADER_SIZE || payloadSize > MAX_RECORD_SIZE || end > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(payloadSize);
+            readFully(segment, payload, offset + FRAME_HEADER_SIZE);
+            if (crcOf(payload) != expectedCrc
+                    || payloadSize != RECORD_HEADER_SIZE + 8L * payload.getInt(RECORD_HEADER_SIZE - 4)) {
+                break;
+            }
+            int orderId = payload.getInt(0);
+            segmentOrderIds[segmentSize] = orderId;
+            segmentOffsets[segmentSize] = offset;
+            segmentOrderIdVsSlot.put(orderId, segmentSize);
+            segmentSize++;
+            noOfOrders++;
+            offset = end;
+        }
+        segment.truncate(offset);
+        segmentEnd = offset;
+    }
+
+    private void startSegment(int sequence) throws IOException {
+        segmentSequence = sequence;
+        segmentEnd = 0;
+        segment = FileChannel.open(segmentFile(sequence), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private Path segmentFile(int sequence) {
+        return directory.resolve(String.format("orders-%010d.seg", sequence));
+    }
+
+    //the open segment is sealed, so the next open does not have to read it through
+    @Override
+    public synchronized void close() throws IOException {
+        for (FileChannel channel : openSegments.values()) {
+            channel.close();
+        }
+        openSegments.clear();
+        if (segment != null) {
+            seal();
+        }
+    }
+
+    static final class SealedSegment {
+
+        final Path file;
+        //first id of every INDEX_BLOCK entries of the index
+        final int[] blockFirstOrderIds;
+        final int maxOrderId;
+        final int noOfOrders;
+        final long indexOffset;
+
+        //index has the sorted [orderId 4][offset 8] entries from position 0
+        SealedSegment(Path file, ByteBuffer index, int noOfOrders, long indexOffset) {
+            this.file = file;
+            this.blockFirstOrderIds = new int[(noOfOrders + INDEX_BLOCK - 1) / INDEX_BLOCK];
+            for (int block = 0; block < blockFirstOrderIds.length; block++) {
+                blockFirstOrderIds[block] = index.getInt(block * INDEX_BLOCK * INDEX_ENTRY_SIZE);
+            }
+            this.maxOrderId = index.getInt((noOfOrders - 1) * INDEX_ENTRY_SIZE);
+            this.noOfOrders = noOfOrders;
+            this.indexOffset = indexOffset;
+        }
+    }
+}
@@ -13,4 +13,8 @@ public class Payment {
         return paymentMode.makePayment();
     }
 
+    public boolean refund(){
+        return paymentMode.refund();
+    }
+
 }
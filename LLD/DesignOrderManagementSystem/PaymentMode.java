@@ -3,4 +3,7 @@ package LowLevelDesign.DesignOrderManagementSystem;
 public interface PaymentMode {
 
     public boolean makePayment();
+
+    //gives back the money of a successful makePayment, ex: the order could not be confirmed
+    public boolean refund();
 }
@@ -2,24 +2,62 @@ package LowLevelDesign.DesignOrderManagementSystem;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ProductCategory {
 
+    //10%, the rate of the fixed 200 + 20 invoice before there was real pricing
+    static final int DEFAULT_TAX_BASIS_POINTS = 1000;
+
     int productCategoryId;
     String categoryName;
     List<Product> products = new ArrayList<>();
-    double price;
+    //money is in paise everywhere, so invoices add up exactly without floating point
+    long pricePaise;
+    int taxBasisPoints;
+
+    //products which are not reserved by any cart, checkouts reserve with CAS on this without locking
+    //products list itself is changed under the category's own lock, there is no inventory wide lock
+    AtomicInteger availableCount = new AtomicInteger();
 
 
-    public void addProduct(Product product){
+    public synchronized void addProduct(Product product){
         products.add(product);
+        availableCount.incrementAndGet();
     }
 
-    //remove products
-    public void removeProduct(int count){
-        for(int i=1;i<=count;i++){
-            products.remove(0);
+    //remove products which are not reserved, false if there are not enough of them
+    public boolean removeProduct(int count){
+        if (count == 0) {
+            return true;
+        }
+        if (!tryReserve(count)) {
+            return false;
         }
+        removeReservedProducts(count);
+        return true;
+    }
+
+    //take count from availableCount, false and nothing taken if not enough is available
+    //a negative count would pass the check and raise availableCount, so it is rejected like in Inventory.reserveItems
+    boolean tryReserve(int count){
+        if (count < 0) {
+            throw new IllegalArgumentException("Invalid count " + count + " for category " + productCategoryId);
+        }
+        while (true) {
+            int available = availableCount.get();
+            if (available < count) {
+                return false;
+            }
+            if (availableCount.compareAndSet(available, available - count)) {
+                return true;
+            }
+        }
+    }
+
+    //reserved products leave the category, the oldest count products go in one shift
+    synchronized void removeReservedProducts(int count){
+        products.subList(0, count).clear();
     }
 
     //get products
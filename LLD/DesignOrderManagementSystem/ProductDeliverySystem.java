@@ -1,17 +1,24 @@
 package LowLevelDesign.DesignOrderManagementSystem;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class ProductDeliverySystem {
 
+    //a split shipment is searched among these many warehouses nearest to the user
+    private static final int MAX_SPLIT_CANDIDATES = 1000;
+
     UserController userController;
     WarehouseController warehouseController;
     OrderController orderController;
+    CheckoutPipeline checkoutPipeline;
 
     ProductDeliverySystem(List<User> userList, List<Warehouse> warehouseList){
         userController = new UserController(userList);
         warehouseController = new WarehouseController(warehouseList , null);
         orderController = new OrderController();
+        checkoutPipeline = new CheckoutPipeline();
     }
 
     //get user object
@@ -42,8 +49,30 @@ public class ProductDeliverySystem {
         return orderController.createNewOrder(user, warehouse);
     }
 
-    public void checkout(Order order){
-        order.checkout();
+    //place order from more than one warehouse when no single warehouse has the whole cart
+    //one order per warehouse, null if all the warehouses together do not have the cart
+    public List<Order> placeSplitOrder(User user){
+
+        SplitShipmentSelectionStrategy strategy = new SplitShipmentSelectionStrategy(user.address,
+                user.getUserCart().getCartItems());
+        List<SubOrder> subOrders = strategy.allocate(warehouseController.warehouseIndex, MAX_SPLIT_CANDIDATES);
+        if(subOrders == null){
+            return null;
+        }
+        List<Order> orders = new ArrayList<>();
+        for(SubOrder subOrder : subOrders){
+            orders.add(orderController.createNewOrder(user, subOrder.warehouse, subOrder.productCategoryAndCountMap));
+        }
+        return orders;
+    }
+
+    public boolean checkout(Order order){
+        return order.checkout();
+    }
+
+    //returns at once, the payment is made on the threads of the checkout pipeline
+    public CompletableFuture<Boolean> checkoutAsync(Order order, PaymentMode paymentMode){
+        return checkoutPipeline.checkout(order, paymentMode);
     }
 
 }
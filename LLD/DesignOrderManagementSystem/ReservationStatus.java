@@ -0,0 +1,8 @@
+package LowLevelDesign.DesignOrderManagementSystem;
+
+public enum ReservationStatus {
+
+    RESERVED,
+    COMMITTED,
+    RELEASED;
+}
@@ -0,0 +1,106 @@
+package LowLevelDesign.DesignOrderManagementSystem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+//split shipment allocation of a 100 line cart over 1000 candidate warehouses, every warehouse has only
+//a random 30% of the catalogue, so the cart always needs several shipments
+//prints shipments and total distance of the greedy step alone and with the local search, and the time taken
+public class SplitShipmentBenchmark {
+
+    private static final int NO_OF_WAREHOUSES = 1000;
+    private static final int NO_OF_CATEGORIES = 500;
+    private static final int CART_LINES = 100;
+    private static final int NO_OF_CARTS = 50;
+
+    public static void main(String args[]) {
+
+        Random random = new Random(42);
+        List<Warehouse> warehouses = new ArrayList<>();
+        for (int i = 0; i < NO_OF_WAREHOUSES; i++) {
+            Warehouse warehouse = new Warehouse();
+            warehouse.address = new Address(100000 + i, "city", "state",
+                    12 + random.nextDouble() * 2, 77 + random.nextDouble() * 2);
+            warehouse.inventory = new Inventory();
+            for (int id = 1; id <= NO_OF_CATEGORIES; id++) {
+                if (random.nextInt(10) < 3) {
+                    warehouse.inventory.addCategory(id, "CATEGORY-" + id, 100);
+                    for (int stock = random.nextInt(4); stock > 0; stock--) {
+                        warehouse.inventory.addProduct(new Product(), id);
+                    }
+                }
+            }
+            warehouses.add(warehouse);
+        }
+
+        List<Map<Integer, Integer>> carts = new ArrayList<>();
+        List<Address> deliveryAddresses = new ArrayList<>();
+        for (int c = 0; c < NO_OF_CARTS; c++) {
+            Map<Integer, Integer> cart = new HashMap<>();
+            while (cart.size() < CART_LINES) {
+                cart.put(1 + random.nextInt(NO_OF_CATEGORIES), 1 + random.nextInt(3));
+            }
+            carts.add(cart);
+            deliveryAddresses.add(new Address(200000, "city", "state",
+                    12 + random.nextDouble() * 2, 77 + random.nextDouble() * 2));
+        }
+
+        //first round warms up the JIT
+        for (int round = 0; round < 2; round++) {
+            run("greedy", warehouses, carts, deliveryAddresses, false);
+            run("greedy + local search", warehouses, carts, deliveryAddresses, true);
+        }
+    }
+
+    private static void run(String name, List<Warehouse> warehouses, List<Map<Integer, Integer>> carts,
+                            List<Address> deliveryAddresses, boolean useLocalSearch) {
+
+        long totalNanos = 0;
+        long maxNanos = 0;
+        int totalShipments = 0;
+        double totalDistanceKm = 0;
+        for (int c = 0; c < carts.size(); c++) {
+            SplitShipmentSelectionStrategy strategy =
+                    new SplitShipmentSelectionStrategy(deliveryAddresses.get(c), carts.get(c));
+            strategy.useLocalSearch = useLocalSearch;
+
+            long start = System.nanoTime();
+            List<SubOrder> subOrders = strategy.allocate(warehouses);
+            long nanos = System.nanoTime() - start;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+
+            if (subOrders == null) {
+                System.out.println("cart " + c + " can not be fulfilled");
+                continue;
+            }
+            checkAllocation(carts.get(c), subOrders);
+            totalShipments += subOrders.size();
+            for (SubOrder subOrder : subOrders) {
+                totalDistanceKm += subOrder.distanceKm;
+            }
+        }
+        System.out.printf("%-21s : %4.1f shipments, %5.0f km per cart   %5.1f ms per cart, max %5.1f ms%n", name,
+                (double) totalShipments / carts.size(), totalDistanceKm / carts.size(),
+                totalNanos / 1e6 / carts.size(), maxNanos / 1e6);
+    }
+
+    //every cart line is shipped in full, and no warehouse ships more than it has
+    private static void checkAllocation(Map<Integer, Integer> cart, List<SubOrder> subOrders) {
+        Map<Integer, Integer> shipped = new HashMap<>();
+        for (SubOrder subOrder : subOrders) {
+            for (Map.Entry<Integer, Integer> line : subOrder.productCategoryAndCountMap.entrySet()) {
+                if (subOrder.warehouse.inventory.getAvailableCount(line.getKey()) < line.getValue()) {
+                    throw new IllegalStateException("warehouse ships more of " + line.getKey() + " than it has");
+                }
+                shipped.merge(line.getKey(), line.getValue(), Integer::sum);
+            }
+        }
+        if (!shipped.equals(cart)) {
+            throw new IllegalStateException("shipped items do not match the cart");
+        }
+    }
+}
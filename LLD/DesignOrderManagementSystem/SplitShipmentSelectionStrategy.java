@@ -0,0 +1,329 @@
+package LowLevelDesign.DesignOrderManagementSystem;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//splits the cart across warehouses when no single warehouse has all of it
+//goal is the fewest shipments first, and then the least total distance from the warehouses to the delivery address
+//
+//greedy : keep picking the warehouse which covers the most of the still missing units (nearest on a tie)
+//local search, repeated while it improves and the time budget lasts :
+//  drop     : give all the items of one warehouse to the other picked warehouses, one shipment less
+//  merge    : one unpicked warehouse takes over the items of two picked ones, one shipment less
+//  relocate : a nearer unpicked warehouse takes over all the items of a picked one
+//merge and relocate may leave some items to the spare stock of the other picked warehouses
+//every move is polynomial in (picked warehouses, candidates, cart lines), so 100 lines over 1000 candidates
+//stay within a few milliseconds, and the time budget caps the local search anyway
+//
+//stock is read once at the start, the sub orders still have to reserve it at checkout
+public class SplitShipmentSelectionStrategy extends WarehouseSelectionStrategy{
+
+    private static final int MAX_IMPROVEMENT_ROUNDS = 50;
+    private static final long LOCAL_SEARCH_BUDGET_NANOS = 20_000_000;
+
+    Address deliveryAddress;
+    Map<Integer, Integer> cartItems;
+    //false gives the plain greedy allocation, to compare against
+    boolean useLocalSearch = true;
+
+    SplitShipmentSelectionStrategy(Address deliveryAddress, Map<Integer, Integer> cartItems){
+        this.deliveryAddress = deliveryAddress;
+        this.cartItems = cartItems;
+    }
+
+    //warehouse of the first sub order, the only one when a single warehouse has the whole cart
+    @Override
+    public Warehouse selectWarehouse(List<Warehouse> warehouseList) {
+        List<SubOrder> subOrders = allocate(warehouseList);
+        return subOrders == null || subOrders.isEmpty() ? null : subOrders.get(0).warehouse;
+    }
+
+    //candidates are the maxCandidates nearest warehouses having any item of the cart
+    public List<SubOrder> allocate(WarehouseIndex warehouseIndex, int maxCandidates) {
+        return allocate(warehouseIndex.findNearest(deliveryAddress.latitude, deliveryAddress.longitude, maxCandidates,
+                this::hasAnyItem));
+    }
+
+    //sub orders nearest first, null if all the warehouses together do not have the cart
+    public List<SubOrder> allocate(List<Warehouse> warehouseList) {
+
+        int lines = cartItems.size();
+        int[] categoryIds = new int[lines];
+        int[] remaining = new int[lines];
+        int line = 0;
+        for(Map.Entry<Integer, Integer> entry : cartItems.entrySet()){
+            categoryIds[line] = entry.getKey();
+            remaining[line] = entry.getValue();
+            line++;
+        }
+
+        List<Warehouse> usable = new ArrayList<>();
+        for(Warehouse warehouse : warehouseList){
+            if(warehouse.address != null && hasAnyItem(warehouse)){
+                usable.add(warehouse);
+            }
+        }
+        Warehouse[] candidates = usable.toArray(new Warehouse[0]);
+        double[] distanceKm = new double[candidates.length];
+        int[][] capacity = new int[candidates.length][lines];
+        for(int w = 0; w < candidates.length; w++){
+            distanceKm[w] = WarehouseIndex.haversineKm(deliveryAddress.latitude, deliveryAddress.longitude,
+                    candidates[w].address.latitude, candidates[w].address.longitude);
+            for(int l = 0; l < lines; l++){
+                capacity[w][l] = Math.min(candidates[w].inventory.getAvailableCount(categoryIds[l]), remaining[l]);
+            }
+        }
+
+        Allocation allocation = new Allocation(categoryIds, candidates, distanceKm, capacity);
+        if(!allocation.greedy(remaining)){
+            return null;
+        }
+        if(useLocalSearch){
+            allocation.localSearch();
+        }
+        return allocation.buildSubOrders();
+    }
+
+    private boolean hasAnyItem(Warehouse warehouse) {
+        for(Map.Entry<Integer, Integer> entry : cartItems.entrySet()){
+            if(warehouse.inventory.getAvailableCount(entry.getKey()) > 0){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //state of one allocate call, so the strategy object itself holds nothing between calls
+    private static final class Allocation {
+
+        final int[] categoryIds;
+        final Warehouse[] candidates;
+        final double[] distanceKm;
+        //per candidate and cart line : stock not given out yet, and items given to this candidate
+        final int[][] capacity;
+        final int[][] assigned;
+        final int[] assignedUnits;
+
+        Allocation(int[] categoryIds, Warehouse[] candidates, double[] distanceKm, int[][] capacity) {
+            this.categoryIds = categoryIds;
+            this.candidates = candidates;
+            this.distanceKm = distanceKm;
+            this.capacity = capacity;
+            this.assigned = new int[candidates.length][categoryIds.length];
+            this.assignedUnits = new int[candidates.length];
+        }
+        private boolean greedy(int[] remaining) {
+
+            int missingUnits = 0;
+            for(int units : remaining){
+                missingUnits += units;
+            }
+            while(missingUnits > 0){
+                int best = -1;
+                int bestUnits = 0;
+                for(int w = 0; w < candidates.length; w++){
+                    if(assignedUnits[w] > 0){
+                        continue;
+                    }
+                    int units = 0;
+                    for(int l = 0; l < remaining.length; l++){
+                        units += Math.min(capacity[w][l], remaining[l]);
+                    }
+                    if(units > bestUnits || (units == bestUnits && units > 0 && distanceKm[w] < distanceKm[best])){
+                        best = w;
+                        bestUnits = units;
+                    }
+                }
+                if(best < 0){
+                    return false;
+                }
+                for(int l = 0; l < remaining.length; l++){
+                    int units = Math.min(capacity[best][l], remaining[l]);
+                    move(-1, best, l, units);
+                    remaining[l] -= units;
+                }
+                missingUnits -= bestUnits;
+            }
+            return true;
+        }
+
+        private void localSearch() {
+            long deadline = System.nanoTime() + LOCAL_SEARCH_BUDGET_NANOS;
+            for(int round = 0; round < MAX_IMPROVEMENT_ROUNDS && System.nanoTime() < deadline; round++){
+                if(!tryDrop() && !tryMerge() && !tryRelocate()){
+                    return;
+                }
+            }
+        }
+
+        //farthest picked warehouse whose items fit into the other picked warehouses
+        private boolean tryDrop() {
+
+            List<Integer> picked = pickedFarthestFirst();
+            for(int dropped : picked){
+                boolean fits = true;
+                for(int l = 0; l < categoryIds.length && fits; l++){
+                    int spare = 0;
+                    for(int other : picked){
+                        if(other != dropped){
+                            spare += capacity[other][l];
+                        }
+                    }
+                    fits = spare >= assigned[dropped][l];
+                }
+                if(!fits){
+                    continue;
+                }
+                //nearest first, so the items end up as near as possible
+                for(int l = 0; l < categoryIds.length; l++){
+                    for(int i = picked.size() - 1; i >= 0 && assigned[dropped][l] > 0; i--){
+                        int other = picked.get(i);
+                        if(other != dropped){
+                            move(dropped, other, l, Math.min(capacity[other][l], assigned[dropped][l]));
+                        }
+                    }
+                }
+                return true;
+            }
+            return false;
+        }
+
+        //two picked warehouses replaced by the nearest unpicked one which has the items of both
+        private boolean tryMerge() {
+
+            List<Integer> picked = pickedFarthestFirst();
+            int[] spare = spareOf(picked);
+            int bestFirst = -1;
+            int bestSecond = -1;
+            int bestTarget = -1;
+            for(int i = 0; i < picked.size(); i++){
+                for(int j = i + 1; j < picked.size(); j++){
+                    int first = picked.get(i);
+                    int second = picked.get(j);
+                    for(int w = 0; w < candidates.length; w++){
+                        if(assignedUnits[w] > 0 || (bestTarget >= 0 && distanceKm[w] >= distanceKm[bestTarget])){
+                            continue;
+                        }
+                        if(canTakeOver(w, first, second, spare)){
+                            bestFirst = first;
+                            bestSecond = second;
+                            bestTarget = w;
+                        }
+                    }
+                }
+            }
+            if(bestTarget < 0){
+                return false;
+            }
+            handOver(bestFirst, bestTarget, picked);
+            handOver(bestSecond, bestTarget, picked);
+            return true;
+        }
+
+        //picked warehouse moved to the nearest nearer unpicked warehouse having all its items, farthest picked first
+        private boolean tryRelocate() {
+
+            List<Integer> picked = pickedFarthestFirst();
+            int[] spare = spareOf(picked);
+            for(int from : picked){
+                int bestTarget = -1;
+                for(int w = 0; w < candidates.length; w++){
+                    if(assignedUnits[w] > 0 || distanceKm[w] >= distanceKm[from]
+                            || (bestTarget >= 0 && distanceKm[w] >= distanceKm[bestTarget])){
+                        continue;
+                    }
+                    if(canTakeOver(w, from, -1, spare)){
+                        bestTarget = w;
+                    }
+                }
+                if(bestTarget >= 0){
+                    handOver(from, bestTarget, picked);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        //spare stock per cart line summed over the picked warehouses
+        private int[] spareOf(List<Integer> picked) {
+            int[] spare = new int[categoryIds.length];
+            for(int w : picked){
+                for(int l = 0; l < categoryIds.length; l++){
+                    spare[l] += capacity[w][l];
+                }
+            }
+            return spare;
+        }
+
+        //second is -1 when only one warehouse is taken over
+        //the spare stock of the warehouses being taken over does not count, they are going away
+        private boolean canTakeOver(int target, int first, int second, int[] spare) {
+            for(int l = 0; l < categoryIds.length; l++){
+                int units = assigned[first][l] + (second >= 0 ? assigned[second][l] : 0);
+                int othersSpare = spare[l] - capacity[first][l] - (second >= 0 ? capacity[second][l] : 0);
+                if(capacity[target][l] + othersSpare < units){
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        //target takes all it can, the rest goes to the other picked warehouses nearest first
+        private void handOver(int from, int target, List<Integer> picked) {
+            for(int l = 0; l < categoryIds.length; l++){
+                move(from, target, l, Math.min(capacity[target][l], assigned[from][l]));
+                for(int i = picked.size() - 1; i >= 0 && assigned[from][l] > 0; i--){
+                    int other = picked.get(i);
+                    if(other != from && assignedUnits[other] > 0){
+                        move(from, other, l, Math.min(capacity[other][l], assigned[from][l]));
+                    }
+                }
+            }
+        }
+
+        //from is -1 for units not given to any warehouse yet
+        private void move(int from, int to, int line, int units) {
+            if(units == 0){
+                return;
+            }
+            if(from >= 0){
+                assigned[from][line] -= units;
+                capacity[from][line] += units;
+                assignedUnits[from] -= units;
+            }
+            assigned[to][line] += units;
+            capacity[to][line] -= units;
+            assignedUnits[to] += units;
+        }
+
+        private List<Integer> pickedFarthestFirst() {
+            List<Integer> picked = new ArrayList<>();
+            for(int w = 0; w < candidates.length; w++){
+                if(assignedUnits[w] > 0){
+                    picked.add(w);
+                }
+            }
+            picked.sort(Comparator.comparingDouble((Integer w) -> distanceKm[w]).reversed());
+            return picked;
+        }
+
+        private List<SubOrder> buildSubOrders() {
+            List<Integer> picked = pickedFarthestFirst();
+            List<SubOrder> subOrders = new ArrayList<>();
+            for(int i = picked.size() - 1; i >= 0; i--){
+                int w = picked.get(i);
+                Map<Integer, Integer> productCategoryAndCountMap = new HashMap<>();
+                for(int l = 0; l < categoryIds.length; l++){
+                    if(assigned[w][l] > 0){
+                        productCategoryAndCountMap.put(categoryIds[l], assigned[w][l]);
+                    }
+                }
+                subOrders.add(new SubOrder(candidates[w], productCategoryAndCountMap, distanceKm[w]));
+            }
+            return subOrders;
+        }
+    }
+}
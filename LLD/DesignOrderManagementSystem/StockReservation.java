@@ -0,0 +1,44 @@
+package LowLevelDesign.DesignOrderManagementSystem;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+//stock kept aside for one cart between reservation and payment, made by Inventory.reserveItems
+//the products are still in the categories, only their availableCount is reduced
+//commit takes the products out once the payment is done, release gives the stock back if it failed
+public class StockReservation {
+
+    final ProductCategory[] categories;
+    final int[] counts;
+    final AtomicReference<ReservationStatus> status = new AtomicReference<>(ReservationStatus.RESERVED);
+
+    StockReservation(ProductCategory[] categories, int[] counts) {
+        this.categories = categories;
+        this.counts = counts;
+    }
+
+    public ReservationStatus getStatus() {
+        return status.get();
+    }
+
+    //RESERVED -> COMMITTED, false if it was already committed or released
+    public boolean commit() {
+        if (!status.compareAndSet(ReservationStatus.RESERVED, ReservationStatus.COMMITTED)) {
+            return false;
+        }
+        for (int i = 0; i < categories.length; i++) {
+            categories[i].removeReservedProducts(counts[i]);
+        }
+        return true;
+    }
+
+    //RESERVED -> RELEASED, false if it was already committed or released
+    public boolean release() {
+        if (!status.compareAndSet(ReservationStatus.RESERVED, ReservationStatus.RELEASED)) {
+            return false;
+        }
+        for (int i = 0; i < categories.length; i++) {
+            categories[i].availableCount.addAndGet(counts[i]);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,83 @@
+package LowLevelDesign.DesignOrderManagementSystem;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//thousands of concurrent checkouts of random multi item carts on the same small stock, 1 in 5 payments fail
+//stock must never go negative, and every product must be either sold or still in the inventory
+public class StockReservationStress {
+
+    private static final int NO_OF_CATEGORIES = 20;
+    private static final int STOCK_PER_CATEGORY = 500;
+    private static final int NO_OF_CHECKOUTS = 20000;
+    private static final int NO_OF_THREADS = 64;
+
+    public static void main(String args[]) throws InterruptedException {
+
+        Inventory inventory = new Inventory();
+        for (int id = 1; id <= NO_OF_CATEGORIES; id++) {
+            inventory.addCategory(id, "CATEGORY-" + id, 100);
+            for (int i = 0; i < STOCK_PER_CATEGORY; i++) {
+                inventory.addProduct(new Product(), id);
+            }
+        }
+
+        AtomicLongArray soldPerCategory = new AtomicLongArray(NO_OF_CATEGORIES + 1);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        CountDownLatch doneLatch = new CountDownLatch(NO_OF_CHECKOUTS);
+        ExecutorService users = Executors.newFixedThreadPool(NO_OF_THREADS);
+
+        for (int checkout = 0; checkout < NO_OF_CHECKOUTS; checkout++) {
+            users.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Map<Integer, Integer> cart = new HashMap<>();
+                int lines = 1 + random.nextInt(5);
+                for (int i = 0; i < lines; i++) {
+                    cart.merge(1 + random.nextInt(NO_OF_CATEGORIES), 1 + random.nextInt(3), Integer::sum);
+                }
+                try {
+                    startLatch.await();
+                    StockReservation reservation = inventory.reserveItems(cart);
+                    if (reservation != null) {
+                        boolean isPaymentSuccess = random.nextInt(5) != 0;
+                        if (isPaymentSuccess && reservation.commit()) {
+                            for (Map.Entry<Integer, Integer> line : cart.entrySet()) {
+                                soldPerCategory.addAndGet(line.getKey(), line.getValue());
+                            }
+                        } else {
+                            reservation.release();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    doneLatch.countDown();
+                }
+            });
+        }
+        long start = System.nanoTime();
+        startLatch.countDown();
+        doneLatch.await();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        users.shutdown();
+        users.awaitTermination(1, TimeUnit.MINUTES);
+
+        for (int id = 1; id <= NO_OF_CATEGORIES; id++) {
+            ProductCategory category = inventory.getProductCategoryFromID(id);
+            long expected = STOCK_PER_CATEGORY - soldPerCategory.get(id);
+            if (category.availableCount.get() < 0 || category.products.size() != expected
+                    || category.availableCount.get() != expected) {
+                System.out.println("FAILED : category " + id + " has " + category.products.size() + " products, "
+                        + category.availableCount.get() + " available, expected " + expected);
+                System.exit(1);
+            }
+        }
+        System.out.println(NO_OF_CHECKOUTS + " concurrent checkouts in " + millis + " ms, no stock lost or oversold");
+    }
+}
@@ -0,0 +1,29 @@
+package LowLevelDesign.DesignOrderManagementSystem;
+
+import java.util.Map;
+
+//part of a cart shipped from one warehouse, made by SplitShipmentSelectionStrategy
+public class SubOrder {
+
+    Warehouse warehouse;
+    Map<Integer, Integer> productCategoryAndCountMap;
+    double distanceKm;
+
+    SubOrder(Warehouse warehouse, Map<Integer, Integer> productCategoryAndCountMap, double distanceKm){
+        this.warehouse = warehouse;
+        this.productCategoryAndCountMap = productCategoryAndCountMap;
+        this.distanceKm = distanceKm;
+    }
+
+    public Warehouse getWarehouse() {
+        return warehouse;
+    }
+
+    public Map<Integer, Integer> getProductCategoryAndCountMap() {
+        return productCategoryAndCountMap;
+    }
+
+    public double getDistanceKm() {
+        return distanceKm;
+    }
+}
@@ -6,4 +6,9 @@ public class UPIPaymentMode implements PaymentMode{
     public boolean makePayment() {
         return true;
     }
+
+    @Override
+    public boolean refund() {
+        return true;
+    }
 }
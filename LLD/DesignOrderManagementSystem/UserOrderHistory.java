@@ -0,0 +1,48 @@
+package LowLevelDesign.DesignOrderManagementSystem;
+
+//ids of the last MAX_RECENT_ORDERS orders of one user, in the order they were placed
+//a ring buffer, so adding is O(1) and reading the recent orders is O(MAX_RECENT_ORDERS) however many orders the user has
+//older ids fall off the ring, those orders can still be looked up by their id
+class UserOrderHistory {
+
+    static final int MAX_RECENT_ORDERS = 20;
+
+    final int[] orderIds = new int[MAX_RECENT_ORDERS];
+    //slot for the next id, and ids in the ring
+    int next;
+    int size;
+
+    synchronized void add(int orderId){
+        orderIds[next] = orderId;
+        next = (next + 1) % MAX_RECENT_ORDERS;
+        size = Math.min(size + 1, MAX_RECENT_ORDERS);
+    }
+
+    //the ids after the removed one move one slot back, so the ring stays in order
+    synchronized boolean remove(int orderId){
+        for(int i = 0; i < size; i++){
+            int slot = (next - 1 - i + MAX_RECENT_ORDERS) % MAX_RECENT_ORDERS;
+            if(orderIds[slot] != orderId){
+                continue;
+            }
+            for(int j = i; j > 0; j--){
+                int newerSlot = (slot + 1) % MAX_RECENT_ORDERS;
+                orderIds[slot] = orderIds[newerSlot];
+                slot = newerSlot;
+            }
+            next = (next - 1 + MAX_RECENT_ORDERS) % MAX_RECENT_ORDERS;
+            size--;
+            return true;
+        }
+        return false;
+    }
+
+    //newest first
+    synchronized int[] getRecentOrderIds(){
+        int[] recent = new int[size];
+        for(int i = 0; i < size; i++){
+            recent[i] = orderIds[(next - 1 - i + MAX_RECENT_ORDERS) % MAX_RECENT_ORDERS];
+        }
+        return recent;
+    }
+}
@@ -8,15 +8,19 @@ public class Warehouse {
     Inventory inventory;
     Address address;
 
-    //update inventory
-    public void removeItemFromInventory(Map<Integer, Integer> productCategoryAndCountMap){
+    //update inventory, false and nothing removed if any item is out of stock
+    public boolean removeItemFromInventory(Map<Integer, Integer> productCategoryAndCountMap){
 
         //it will update the items in the inventory based upon product category.
-        inventory.removeItems(productCategoryAndCountMap);
+        return inventory.removeItems(productCategoryAndCountMap);
     }
 
-    public void addItemToInventory(Map<Integer, Integer> productCategoryAndCountMap){
+    public boolean hasStock(Map<Integer, Integer> productCategoryAndCountMap){
+        return inventory.hasStock(productCategoryAndCountMap);
+    }
 
-        //it will update the items in the inventory based upon product category.
+    //keep the items aside till the payment is done, null if any item is out of stock
+    public StockReservation reserveItems(Map<Integer, Integer> productCategoryAndCountMap){
+        return inventory.reserveItems(productCategoryAndCountMap);
     }
 }
@@ -7,23 +7,37 @@ public class WarehouseController {
     List<Warehouse> warehouseList;
     WarehouseSelectionStrategy warehouseSelectionStrategy = null;
 
+    //warehouses by location, warehouses without an address are only in warehouseList
+    WarehouseIndex warehouseIndex = new WarehouseIndex();
+
     WarehouseController(List<Warehouse> warehouseList, WarehouseSelectionStrategy warehouseSelectionStrategy){
         this.warehouseList = warehouseList;
         this.warehouseSelectionStrategy = warehouseSelectionStrategy;
+        for(Warehouse warehouse : warehouseList){
+            if(warehouse.address != null){
+                warehouseIndex.add(warehouse);
+            }
+        }
     }
 
     //add new warehouse
     public void addNewWarehouse(Warehouse warehouse){
         warehouseList.add(warehouse);
+        if(warehouse.address != null){
+            warehouseIndex.add(warehouse);
+        }
     }
 
     //remove warehouse
     public void removeWarehouse(Warehouse warehouse){
         warehouseList.remove(warehouse);
+        if(warehouse.address != null){
+            warehouseIndex.remove(warehouse);
+        }
     }
 
     public Warehouse selectWarehouse(WarehouseSelectionStrategy selectionStrategy){
         this.warehouseSelectionStrategy = selectionStrategy;
-        return warehouseSelectionStrategy.selectWarehouse(warehouseList);
+        return warehouseSelectionStrategy.selectWarehouse(warehouseList, warehouseIndex);
     }
 }
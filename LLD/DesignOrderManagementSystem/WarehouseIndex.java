@@ -0,0 +1,159 @@
+package LowLevelDesign.DesignOrderManagementSystem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+//grid index over the warehouse coordinates, every cell is CELL_DEGREES x CELL_DEGREES of latitude x longitude
+//nearest search looks at the cell of the address first and then at rings of cells around it,
+//and stops once no warehouse in the next ring can be nearer than the k found so far
+//so a search touches only the cells around the address instead of every warehouse
+//
+//warehouse addresses must not change while the warehouse is in the index
+//longitude does not wrap at +-180, which is fine for warehouses of one country
+public class WarehouseIndex {
+
+    private static final double CELL_DEGREES = 0.25;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    final Map<Long, List<Warehouse>> cellVsWarehouses = new HashMap<>();
+    int size;
+
+    //range of the cells which ever had a warehouse, search never has to go past it
+    int minLatCell = Integer.MAX_VALUE;
+    int maxLatCell = Integer.MIN_VALUE;
+    int minLonCell = Integer.MAX_VALUE;
+    int maxLonCell = Integer.MIN_VALUE;
+
+    public void add(Warehouse warehouse) {
+        int latCell = cellOf(warehouse.address.latitude);
+        int lonCell = cellOf(warehouse.address.longitude);
+        cellVsWarehouses.computeIfAbsent(cellKey(latCell, lonCell), key -> new ArrayList<>()).add(warehouse);
+        size++;
+        minLatCell = Math.min(minLatCell, latCell);
+        maxLatCell = Math.max(maxLatCell, latCell);
+        minLonCell = Math.min(minLonCell, lonCell);
+        maxLonCell = Math.max(maxLonCell, lonCell);
+    }
+
+    public boolean remove(Warehouse warehouse) {
+        long key = cellKey(cellOf(warehouse.address.latitude), cellOf(warehouse.address.longitude));
+        List<Warehouse> warehouses = cellVsWarehouses.get(key);
+        if (warehouses == null || !warehouses.remove(warehouse)) {
+            return false;
+        }
+        if (warehouses.isEmpty()) {
+            cellVsWarehouses.remove(key);
+        }
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    //k nearest warehouses accepted by the filter, nearest first
+    public List<Warehouse> findNearest(double latitude, double longitude, int k, Predicate<Warehouse> filter) {
+
+        if (k <= 0) {
+            throw new IllegalArgumentException("Invalid k: " + k);
+        }
+        if (size == 0) {
+            return new ArrayList<>();
+        }
+
+        //max heap on distance, holds the k nearest found so far
+        PriorityQueue<WarehouseDistance> nearest = new PriorityQueue<>(
+                (first, second) -> Double.compare(second.distanceKm, first.distanceKm));
+        int latCell = cellOf(latitude);
+        int lonCell = cellOf(longitude);
+
+        int maxRing = Math.max(Math.max(latCell - minLatCell, maxLatCell - latCell),
+                Math.max(lonCell - minLonCell, maxLonCell - lonCell));
+        for (int ring = 0; ring <= maxRing; ring++) {
+
+            if (nearest.size() == k && nearest.peek().distanceKm <= minDistanceKmOfRing(latitude, ring)) {
+                break;
+            }
+            for (int lat = latCell - ring; lat <= latCell + ring; lat++) {
+                //inner rows of the ring have only the two end cells
+                int step = (lat == latCell - ring || lat == latCell + ring) ? 1 : Math.max(1, 2 * ring);
+                for (int lon = lonCell - ring; lon <= lonCell + ring; lon += step) {
+                    List<Warehouse> warehouses = cellVsWarehouses.get(cellKey(lat, lon));
+                    if (warehouses == null) {
+                        continue;
+                    }
+                    for (Warehouse warehouse : warehouses) {
+                        double distanceKm = haversineKm(latitude, longitude,
+                                warehouse.address.latitude, warehouse.address.longitude);
+                        if (nearest.size() == k && distanceKm >= nearest.peek().distanceKm) {
+                            continue;
+                        }
+                        if (!filter.test(warehouse)) {
+                            continue;
+                        }
+                        nearest.add(new WarehouseDistance(warehouse, distanceKm));
+                        if (nearest.size() > k) {
+                            nearest.poll();
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Warehouse> result = new ArrayList<>();
+        while (!nearest.isEmpty()) {
+            result.add(nearest.poll().warehouse);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    //any point in ring r or farther is at least (r - 1) cells away in latitude or in longitude, as the address
+    //can be anywhere inside its own cell. for the longitude case the distance is smallest at the highest latitude
+    //the points can have, using hav(d) >= cos^2(maxLatitude) * hav(deltaLongitude)
+    private static double minDistanceKmOfRing(double latitude, int ring) {
+        if (ring <= 1) {
+            return 0;
+        }
+        double minDegrees = (ring - 1) * CELL_DEGREES;
+        double latitudeKm = EARTH_RADIUS_KM * Math.toRadians(minDegrees);
+        double maxLatitude = Math.min(90, Math.abs(latitude) + minDegrees);
+        double longitudeKm = 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1,
+                Math.cos(Math.toRadians(maxLatitude)) * Math.sin(Math.toRadians(minDegrees) / 2)));
+        return Math.min(latitudeKm, longitudeKm);
+    }
+
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double deltaLat = Math.toRadians(lat2 - lat1);
+        double deltaLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(deltaLat / 2) * Math.sin(deltaLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(deltaLon / 2) * Math.sin(deltaLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static int cellOf(double degrees) {
+        return (int) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long cellKey(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xFFFFFFFFL);
+    }
+
+    static final class WarehouseDistance {
+
+        final Warehouse warehouse;
+        final double distanceKm;
+
+        WarehouseDistance(Warehouse warehouse, double distanceKm) {
+            this.warehouse = warehouse;
+            this.distanceKm = distanceKm;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package LowLevelDesign.DesignOrderManagementSystem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+//nearest warehouse with the cart in stock among 5000 warehouses and dark stores spread over India
+//WarehouseIndex ring search vs the haversine scan of every warehouse, both must pick the same warehouse
+public class WarehouseSearchBenchmark {
+
+    private static final int NO_OF_WAREHOUSES = 5000;
+    private static final int NO_OF_ORDERS = 20000;
+
+    public static void main(String args[]) {
+
+        Random random = new Random(42);
+        List<Warehouse> warehouses = new ArrayList<>();
+        for (int i = 0; i < NO_OF_WAREHOUSES; i++) {
+            Warehouse warehouse = new Warehouse();
+            warehouse.address = new Address(100000 + i, "city", "state",
+                    8 + random.nextDouble() * 27, 68 + random.nextDouble() * 29);
+            warehouse.inventory = new Inventory();
+            warehouse.inventory.addCategory(1, "Peppsii Large Cold Drink", 100);
+            //7 out of 10 warehouses have the item in stock
+            if (random.nextInt(10) < 7) {
+                warehouse.inventory.addProduct(new Product(), 1);
+            }
+            warehouses.add(warehouse);
+        }
+        WarehouseController warehouseController = new WarehouseController(warehouses, null);
+
+        Address[] deliveryAddresses = new Address[NO_OF_ORDERS];
+        for (int i = 0; i < NO_OF_ORDERS; i++) {
+            deliveryAddresses[i] = new Address(200000, "city", "state",
+                    8 + random.nextDouble() * 27, 68 + random.nextDouble() * 29);
+        }
+        Map<Integer, Integer> cart = Map.of(1, 1);
+
+        //first rounds warm up the JIT
+        for (int round = 0; round < 3; round++) {
+            Warehouse[] scanResult = new Warehouse[NO_OF_ORDERS];
+            long start = System.nanoTime();
+            for (int i = 0; i < NO_OF_ORDERS; i++) {
+                scanResult[i] = new NearestWarehouseSelectionStrategy(deliveryAddresses[i], cart)
+                        .selectWarehouse(warehouses);
+            }
+            long scanNanos = System.nanoTime() - start;
+
+            int mismatches = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < NO_OF_ORDERS; i++) {
+                Warehouse warehouse = warehouseController.selectWarehouse(
+                        new NearestWarehouseSelectionStrategy(deliveryAddresses[i], cart));
+                if (warehouse != scanResult[i]) {
+                    mismatches++;
+                }
+            }
+            long indexNanos = System.nanoTime() - start;
+
+            System.out.printf("round %d  scan : %7.1f us/order   index : %5.1f us/order   mismatches : %d%n",
+                    round, scanNanos / 1000.0 / NO_OF_ORDERS, indexNanos / 1000.0 / NO_OF_ORDERS, mismatches);
+        }
+    }
+}
@@ -5,4 +5,9 @@ import java.util.List;
 public abstract class WarehouseSelectionStrategy {
 
     public abstract Warehouse selectWarehouse(List<Warehouse> warehouseList);
+
+    //strategies which can use the WarehouseController's spatial index override this
+    public Warehouse selectWarehouse(List<Warehouse> warehouseList, WarehouseIndex warehouseIndex) {
+        return selectWarehouse(warehouseList);
+    }
 }